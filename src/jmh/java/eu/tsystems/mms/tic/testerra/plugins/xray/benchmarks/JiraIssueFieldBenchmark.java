@@ -0,0 +1,74 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.benchmarks;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestSetIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads fields of an issue returned by the API through {@code getOrCreateField}.
+ * The raw JSON maps are converted on the first access, so the benchmark measures the repeated access of the synchronization.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JiraIssueFieldBenchmark {
+
+    private static final String ISSUE_JSON = "{\"key\":\"SWFTE-8\",\"fields\":{"
+            + "\"summary\":\"Benchmark Test Set\","
+            + "\"labels\":[\"benchmark\",\"xray\"],"
+            + "\"status\":{\"id\":\"1\",\"name\":\"Open\",\"statusCategory\":{\"key\":\"new\"}},"
+            + "\"fixVersions\":[{\"name\":\"1.0\"},{\"name\":\"1.1\"}]"
+            + "}}";
+
+    private XrayIssue issue;
+
+    @Setup
+    public void setup() throws IOException {
+        issue = new XrayIssue(JsonCodec.JIRA_ISSUE_READER.<JiraIssue>readValue(ISSUE_JSON));
+    }
+
+    @Benchmark
+    public void readFields(Blackhole blackhole) {
+        blackhole.consume(issue.getSummary());
+        blackhole.consume(issue.getLabels());
+        blackhole.consume(issue.getStatus());
+        blackhole.consume(issue.getFixVersions());
+    }
+
+    @Benchmark
+    public void readTestKeys(Blackhole blackhole) {
+        blackhole.consume(new XrayTestSetIssue(issue).getTestKeys());
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.benchmarks;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.KeyIn;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.SummaryContainsExact;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestType;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestTypeEquals;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Creates the JQL of a typical Test query and of a bulk key search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JqlQueryBenchmark {
+
+    private JqlQuery testQuery;
+    private JqlQuery keyQuery;
+
+    @Setup
+    public void setup() {
+        testQuery = JqlQuery.create()
+                .addCondition(new ProjectEquals("SWFTE"))
+                .addCondition(new TestTypeEquals(TestType.AutomatedGeneric))
+                .addCondition(new SummaryContainsExact("BenchmarkTest.testMethod"))
+                .build();
+        final List<String> keys = IntStream.range(0, 100)
+                .mapToObj(i -> String.format("SWFTE-%d", i))
+                .collect(Collectors.toList());
+        keyQuery = JqlQuery.create()
+                .addCondition(new KeyIn(keys))
+                .build();
+    }
+
+    @Benchmark
+    public String createTestQueryJql() {
+        return testQuery.createJql();
+    }
+
+    @Benchmark
+    public String createKeyQueryJql() {
+        return keyQuery.createJql();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.benchmarks;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssuesSearchResult;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Deserializes a search result page like the paged search does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SearchResultBenchmark {
+
+    @Param({"100", "1000"})
+    public int issues;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        json = IntStream.range(0, issues)
+                .mapToObj(i -> String.format("{\"id\":\"%d\",\"key\":\"SWFTE-%d\",\"fields\":{\"summary\":\"BenchmarkTest.testMethod%d\",\"labels\":[\"benchmark\"],\"updated\":\"2021-06-01T12:00:00.000+0200\"}}", 10000 + i, i, i))
+                .collect(Collectors.joining(",", String.format("{\"startAt\":0,\"maxResults\":%d,\"total\":%d,\"issues\":[", issues, issues), "]}"));
+    }
+
+    @Benchmark
+    public JiraIssuesSearchResult deserialize() throws IOException {
+        return JsonCodec.JIRA_ISSUES_SEARCH_RESULT_READER.readValue(json);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.benchmarks;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Serializes a Test Execution import like {@link eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils#importTestExecution} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TestExecutionImportBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int testRuns;
+
+    private XrayTestExecutionImport testExecutionImport;
+
+    @Setup
+    public void setup() {
+        testExecutionImport = new XrayTestExecutionImport("SWFTE-1");
+        testExecutionImport.getInfo().setSummary("Benchmark execution");
+        final Date start = new Date();
+        for (int i = 0; i < testRuns; i++) {
+            final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun(String.format("SWFTE-%d", i + 2));
+            testRun.setStart(start);
+            testRun.setFinish(start);
+            testRun.setStatus(i % 10 == 0 ? XrayTestExecutionImport.TestRun.Status.FAIL : XrayTestExecutionImport.TestRun.Status.PASS);
+            testRun.setComment(String.format("Test method benchmark%d finished", i));
+            testExecutionImport.addTest(testRun);
+        }
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        JsonCodec.TEST_EXECUTION_IMPORT_WRITER.writeValue(OutputStream.nullOutputStream(), testExecutionImport);
+    }
+}
@@ -27,9 +27,15 @@ import eu.tsystems.mms.tic.testframework.common.PropertyManager;
 import eu.tsystems.mms.tic.testframework.logging.Loggable;
 import org.apache.commons.lang3.StringUtils;
 
+import java.io.File;
+import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class XrayConfig implements Loggable {
     private static final String DEFAULT_PROPERTIES_FILE = "xray.properties";
@@ -43,7 +49,39 @@ public class XrayConfig implements Loggable {
     private final String password;
     private final String token;
     private final int syncFrequencyTests;
+    private final boolean syncAsyncEnabled;
+    private final int syncAsyncShutdownTimeoutSeconds;
+    private final long syncImportMaxBytes;
+    private final boolean syncSpoolEnabled;
+    private final File syncSpoolFile;
+    private final File syncShardDirectory;
+    private final String syncShardId;
+    private final int syncShardCount;
+    private final int searchPageSize;
+    private final boolean searchPrefetchEnabled;
+    private final boolean searchBatchEnabled;
+    private final int searchJqlMaxLength;
+    private final boolean mappingCacheEnabled;
+    private final File mappingCacheFile;
+    private final int mappingCacheTimeToLiveHours;
+    private final File transitionCacheFile;
+    private final String httpTransport;
+    private final int httpConnectTimeoutMillis;
+    private final int httpReadTimeoutMillis;
+    private final int httpPoolMaxConnections;
+    private final int httpPoolMaxConnectionsPerRoute;
+    private final int httpPoolIdleTimeoutSeconds;
+    private final int httpChunkedEncodingSize;
+    private final int httpRetryMax;
+    private final int httpRetryDelayMillis;
+    private final int httpRetryMaxDelayMillis;
+    private final double httpRateLimit;
+    private final int httpRateBurst;
+    private final boolean httpMetricsEnabled;
     private final boolean webResourceFilterLoggingEnabled;
+    private final int webResourceFilterLoggingEntityMaxBytes;
+    private final double webResourceFilterLoggingSampleRate;
+    private final List<String> webResourceFilterLoggingRedactedHeaders;
     private final boolean webResourceFilterGetRequestsOnlyEnabled;
     private final String fakeTestExecutionKey;
 
@@ -57,6 +95,36 @@ public class XrayConfig implements Loggable {
         password = PropertyManager.getProperty("xray.password");
         token = PropertyManager.getProperty("xray.token");
         syncFrequencyTests = PropertyManager.getIntProperty("xray.sync.frequency", 10);
+        syncAsyncEnabled = PropertyManager.getBooleanProperty("xray.sync.async.enabled", false);
+        syncAsyncShutdownTimeoutSeconds = PropertyManager.getIntProperty("xray.sync.async.shutdown.timeout", 600);
+        syncImportMaxBytes = Long.parseLong(PropertyManager.getProperty("xray.sync.import.max.size", "0"));
+        syncSpoolEnabled = PropertyManager.getBooleanProperty("xray.sync.spool.enabled", false);
+        syncSpoolFile = new File(PropertyManager.getProperty("xray.sync.spool.file", "build/xray/spool.jsonl"));
+        final String shardDirectory = PropertyManager.getProperty("xray.sync.shard.directory", "");
+        syncShardDirectory = StringUtils.isNotBlank(shardDirectory) ? new File(shardDirectory) : null;
+        syncShardId = PropertyManager.getProperty("xray.sync.shard.id", getDefaultShardId());
+        syncShardCount = PropertyManager.getIntProperty("xray.sync.shard.count", 1);
+        searchPageSize = PropertyManager.getIntProperty("xray.search.page.size", 100);
+        searchPrefetchEnabled = PropertyManager.getBooleanProperty("xray.search.prefetch.enabled", false);
+        searchBatchEnabled = PropertyManager.getBooleanProperty("xray.search.batch.enabled", false);
+        searchJqlMaxLength = PropertyManager.getIntProperty("xray.search.jql.max.length", 2000);
+        mappingCacheEnabled = PropertyManager.getBooleanProperty("xray.sync.cache.enabled", false);
+        mappingCacheFile = new File(PropertyManager.getProperty("xray.sync.cache.file", "build/xray/mapping-cache.json"));
+        mappingCacheTimeToLiveHours = PropertyManager.getIntProperty("xray.sync.cache.ttl", 168);
+        transitionCacheFile = new File(PropertyManager.getProperty("xray.sync.cache.transitions.file", "build/xray/transitions.json"));
+        httpTransport = PropertyManager.getProperty("xray.http.transport", "default");
+        httpConnectTimeoutMillis = PropertyManager.getIntProperty("xray.http.connect.timeout", 0);
+        httpReadTimeoutMillis = PropertyManager.getIntProperty("xray.http.read.timeout", 0);
+        httpPoolMaxConnections = PropertyManager.getIntProperty("xray.http.pool.max.connections", 20);
+        httpPoolMaxConnectionsPerRoute = PropertyManager.getIntProperty("xray.http.pool.max.connections.per.route", 10);
+        httpPoolIdleTimeoutSeconds = PropertyManager.getIntProperty("xray.http.pool.idle.timeout", 30);
+        httpChunkedEncodingSize = PropertyManager.getIntProperty("xray.http.chunked.size", 8192);
+        httpRetryMax = PropertyManager.getIntProperty("xray.http.retry.max", 3);
+        httpRetryDelayMillis = PropertyManager.getIntProperty("xray.http.retry.delay", 1000);
+        httpRetryMaxDelayMillis = PropertyManager.getIntProperty("xray.http.retry.delay.max", 30000);
+        httpRateLimit = Double.parseDouble(PropertyManager.getProperty("xray.http.rate.limit", "0"));
+        httpRateBurst = PropertyManager.getIntProperty("xray.http.rate.burst", 10);
+        httpMetricsEnabled = PropertyManager.getBooleanProperty("xray.http.metrics.enabled", true);
 
         URI uri = null;
         final String baseUriProperty = "xray.rest.service.uri";
@@ -72,6 +140,12 @@ public class XrayConfig implements Loggable {
         }
         restServiceUri = uri;
         webResourceFilterLoggingEnabled = PropertyManager.getBooleanProperty("xray.webresource.filter.logging.enabled", false);
+        webResourceFilterLoggingEntityMaxBytes = PropertyManager.getIntProperty("xray.webresource.filter.logging.entity.max.size", 10 * 1024);
+        webResourceFilterLoggingSampleRate = Double.parseDouble(PropertyManager.getProperty("xray.webresource.filter.logging.sample.rate", "1"));
+        webResourceFilterLoggingRedactedHeaders = Arrays.stream(PropertyManager.getProperty("xray.webresource.filter.logging.redact.headers", "Authorization,Proxy-Authorization,Cookie,Set-Cookie").split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toList());
         webResourceFilterGetRequestsOnlyEnabled = PropertyManager.getBooleanProperty("xray.webresource.filter.getrequestsonly.enabled", false);
         fakeTestExecutionKey = PropertyManager.getProperty("xray.webresource.filter.getrequestsonly.fake.response.key", "FAKE-666666");
 
@@ -143,10 +217,169 @@ public class XrayConfig implements Loggable {
         return syncFrequencyTests;
     }
 
+    public boolean isSyncAsyncEnabled() {
+        return syncAsyncEnabled;
+    }
+
+    public int getSyncAsyncShutdownTimeoutSeconds() {
+        return syncAsyncShutdownTimeoutSeconds;
+    }
+
+    /**
+     * @return Maximum size of a single import request in bytes or 0 if imports are not split
+     */
+    public long getSyncImportMaxBytes() {
+        return syncImportMaxBytes;
+    }
+
+    public boolean isSyncSpoolEnabled() {
+        return syncSpoolEnabled;
+    }
+
+    public File getSyncSpoolFile() {
+        return syncSpoolFile;
+    }
+
+    /**
+     * @return The shared directory of all shards or null if shard mode is disabled
+     */
+    public File getSyncShardDirectory() {
+        return syncShardDirectory;
+    }
+
+    public String getSyncShardId() {
+        return syncShardId;
+    }
+
+    public int getSyncShardCount() {
+        return syncShardCount;
+    }
+
+    private static String getDefaultShardId() {
+        String hostName;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            hostName = "localhost";
+        }
+        return String.format("%s-%d", hostName, ProcessHandle.current().pid());
+    }
+
+    public int getSearchPageSize() {
+        return searchPageSize;
+    }
+
+    public boolean isSearchPrefetchEnabled() {
+        return searchPrefetchEnabled;
+    }
+
+    public boolean isSearchBatchEnabled() {
+        return searchBatchEnabled;
+    }
+
+    public int getSearchJqlMaxLength() {
+        return searchJqlMaxLength;
+    }
+
+    public boolean isMappingCacheEnabled() {
+        return mappingCacheEnabled;
+    }
+
+    public File getMappingCacheFile() {
+        return mappingCacheFile;
+    }
+
+    public int getMappingCacheTimeToLiveHours() {
+        return mappingCacheTimeToLiveHours;
+    }
+
+    public File getTransitionCacheFile() {
+        return transitionCacheFile;
+    }
+
+    public String getHttpTransport() {
+        return httpTransport;
+    }
+
+    public int getHttpConnectTimeoutMillis() {
+        return httpConnectTimeoutMillis;
+    }
+
+    public int getHttpReadTimeoutMillis() {
+        return httpReadTimeoutMillis;
+    }
+
+    public int getHttpPoolMaxConnections() {
+        return httpPoolMaxConnections;
+    }
+
+    public int getHttpPoolMaxConnectionsPerRoute() {
+        return httpPoolMaxConnectionsPerRoute;
+    }
+
+    public int getHttpPoolIdleTimeoutSeconds() {
+        return httpPoolIdleTimeoutSeconds;
+    }
+
+    /**
+     * @return Chunk size of request entities or 0 if chunked transfer encoding is disabled
+     */
+    public int getHttpChunkedEncodingSize() {
+        return httpChunkedEncodingSize;
+    }
+
+    public int getHttpRetryMax() {
+        return httpRetryMax;
+    }
+
+    public int getHttpRetryDelayMillis() {
+        return httpRetryDelayMillis;
+    }
+
+    public int getHttpRetryMaxDelayMillis() {
+        return httpRetryMaxDelayMillis;
+    }
+
+    /**
+     * @return Maximum requests per second or 0 if unlimited
+     */
+    public double getHttpRateLimit() {
+        return httpRateLimit;
+    }
+
+    public int getHttpRateBurst() {
+        return httpRateBurst;
+    }
+
+    public boolean isHttpMetricsEnabled() {
+        return httpMetricsEnabled;
+    }
+
     public boolean isWebResourceFilterLoggingEnabled() {
         return webResourceFilterLoggingEnabled;
     }
 
+    /**
+     * @return Maximum logged bytes of each request and response entity
+     */
+    public int getWebResourceFilterLoggingEntityMaxBytes() {
+        return webResourceFilterLoggingEntityMaxBytes;
+    }
+
+    /**
+     * @return Fraction of logged requests between 0 and 1
+     */
+    public double getWebResourceFilterLoggingSampleRate() {
+        return webResourceFilterLoggingSampleRate;
+    }
+
+    /**
+     * @return Names of headers whose values are not logged
+     */
+    public List<String> getWebResourceFilterLoggingRedactedHeaders() {
+        return webResourceFilterLoggingRedactedHeaders;
+    }
+
     public boolean isWebResourceFilterGetRequestsOnlyEnabled() {
         return webResourceFilterGetRequestsOnlyEnabled;
     }
@@ -0,0 +1,51 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect;
+
+import com.sun.jersey.api.client.Client;
+import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
+
+import java.net.URL;
+
+/**
+ * Transport based on {@link java.net.HttpURLConnection},
+ * which relies on the keep-alive handling of the JVM.
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+    @Override
+    public Client createClient(XrayConfig xrayConfig, URL proxyUrl) {
+        final Client client;
+        if (proxyUrl != null) {
+            client = RESTClientFactory.createWithProxy(proxyUrl);
+        } else {
+            client = RESTClientFactory.createDefault();
+        }
+        if (xrayConfig.getHttpConnectTimeoutMillis() > 0) {
+            client.setConnectTimeout(xrayConfig.getHttpConnectTimeoutMillis());
+        }
+        if (xrayConfig.getHttpReadTimeoutMillis() > 0) {
+            client.setReadTimeout(xrayConfig.getHttpReadTimeoutMillis());
+        }
+        return client;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.config.DefaultClientConfig;
+import com.sun.jersey.client.apache4.ApacheHttpClient4;
+import com.sun.jersey.client.apache4.ApacheHttpClient4Handler;
+import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transport based on Apache HttpClient with a pool of keep-alive connections,
+ * so that parallel requests reuse established TLS connections.
+ * Idle connections are evicted in background.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    @Override
+    public Client createClient(XrayConfig xrayConfig, URL proxyUrl) {
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(xrayConfig.getHttpPoolMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(xrayConfig.getHttpPoolMaxConnectionsPerRoute());
+
+        final RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(xrayConfig.getHttpConnectTimeoutMillis())
+                .setConnectionRequestTimeout(xrayConfig.getHttpConnectTimeoutMillis())
+                .setSocketTimeout(xrayConfig.getHttpReadTimeoutMillis())
+                .build();
+
+        final HttpClientBuilder httpClientBuilder = HttpClientBuilder.create()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(xrayConfig.getHttpPoolIdleTimeoutSeconds(), TimeUnit.SECONDS)
+                // Authentication is done by filters and retries are up to the caller
+                .disableCookieManagement()
+                .disableAutomaticRetries();
+
+        if (proxyUrl != null) {
+            httpClientBuilder.setProxy(new HttpHost(proxyUrl.getHost(), proxyUrl.getPort()));
+        }
+
+        final CloseableHttpClient httpClient = httpClientBuilder.build();
+        return new ApacheHttpClient4(new ApacheHttpClient4Handler(httpClient, null, false), new DefaultClientConfig());
+    }
+}
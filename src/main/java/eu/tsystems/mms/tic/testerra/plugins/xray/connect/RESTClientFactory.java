@@ -25,6 +25,7 @@ package eu.tsystems.mms.tic.testerra.plugins.xray.connect;
 import com.sun.jersey.api.client.Client;
 import com.sun.jersey.client.urlconnection.HttpURLConnectionFactory;
 import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
+import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
@@ -36,6 +37,37 @@ public final class RESTClientFactory {
     private RESTClientFactory() {
     }
 
+    /**
+     * Creates the client by the {@link HttpTransport} configured in {@code xray.http.transport}.
+     * Supported values are {@code default}, {@code pooled} or the class name of a custom implementation.
+     * Request entities are sent with chunked transfer encoding, if {@code xray.http.chunked.size} is set.
+     *
+     * @param proxyUrl The HTTP proxy or null, if the connection is direct
+     */
+    public static Client create(final XrayConfig xrayConfig, final URL proxyUrl) {
+        final Client client = getTransport(xrayConfig.getHttpTransport()).createClient(xrayConfig, proxyUrl);
+        // Otherwise request entities are buffered completely to determine their length
+        if (xrayConfig.getHttpChunkedEncodingSize() > 0) {
+            client.setChunkedEncodingSize(xrayConfig.getHttpChunkedEncodingSize());
+        }
+        return client;
+    }
+
+    private static HttpTransport getTransport(final String name) {
+        switch (name) {
+            case "default":
+                return new DefaultHttpTransport();
+            case "pooled":
+                return new PooledHttpTransport();
+            default:
+                try {
+                    return Class.forName(name).asSubclass(HttpTransport.class).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException(String.format("Unable to create HTTP transport: %s", name), e);
+                }
+        }
+    }
+
     public static Client createDefault() {
         return Client.create();
     }
@@ -27,6 +27,9 @@ import com.sun.jersey.api.client.filter.HTTPBasicAuthFilter;
 import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
 import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.GetRequestOnlyFilter;
 import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.LoggingFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.MetricsFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RateLimitFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter;
 import eu.tsystems.mms.tic.testerra.plugins.xray.util.JiraUtils;
 import eu.tsystems.mms.tic.testframework.logging.Loggable;
 import eu.tsystems.mms.tic.testframework.utils.ProxyUtils;
@@ -34,23 +37,40 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.InputStream;
 import java.net.URL;
+import java.util.Optional;
 
 public class XrayConnector implements Loggable {
 
     private final WebResource webResource;
+    private RateLimitFilter rateLimitFilter;
+    private XrayMetrics metrics;
 
     public XrayConnector() {
-        final Client client;
         URL proxyUrl = ProxyUtils.getSystemHttpsProxyUrl();
-        if (proxyUrl != null && StringUtils.isNotBlank(proxyUrl.getHost()) && proxyUrl.getPort() != -1) {
-            client = RESTClientFactory.createWithProxy(proxyUrl);
-        } else {
-            client = RESTClientFactory.createDefault();
+        if (proxyUrl == null || StringUtils.isBlank(proxyUrl.getHost()) || proxyUrl.getPort() == -1) {
+            proxyUrl = null;
         }
 
         XrayConfig xrayConfig = XrayConfig.getInstance();
+        final Client client = RESTClientFactory.create(xrayConfig, proxyUrl);
         webResource = client.resource(xrayConfig.getRestServiceUri());
 
+        // Added first to be the innermost filter, so that every attempt of a request is measured without waiting for the rate limit
+        if (xrayConfig.isHttpMetricsEnabled()) {
+            metrics = new XrayMetrics();
+            webResource.addFilter(new MetricsFilter(metrics));
+        }
+
+        // Wraps only the metrics, so that every attempt of a request is limited
+        if (xrayConfig.getHttpRateLimit() > 0) {
+            rateLimitFilter = new RateLimitFilter(xrayConfig.getHttpRateLimit(), xrayConfig.getHttpRateBurst());
+            webResource.addFilter(rateLimitFilter);
+            if (metrics != null) {
+                metrics.registerGauge("http.rate.limit.delayed", rateLimitFilter::getDelayedRequests);
+                metrics.registerGauge("http.rate.limit.wait.millis", rateLimitFilter::getTotalWaitMillis);
+            }
+        }
+
         if (StringUtils.isNotEmpty(xrayConfig.getToken())) {
             log().info("Use Bearer token authentication");
             webResource.addFilter(new HttpBearerTokenAuthFilter(xrayConfig.getToken()));
@@ -64,7 +84,16 @@ public class XrayConnector implements Loggable {
         }
 
         if (xrayConfig.isWebResourceFilterLoggingEnabled()) {
-            webResource.addFilter(new LoggingFilter());
+            webResource.addFilter(new LoggingFilter(
+                    xrayConfig.getWebResourceFilterLoggingEntityMaxBytes(),
+                    xrayConfig.getWebResourceFilterLoggingSampleRate(),
+                    xrayConfig.getWebResourceFilterLoggingRedactedHeaders()
+            ));
+        }
+
+        // Added last to wrap all other filters, so that each attempt is authenticated and logged
+        if (xrayConfig.getHttpRetryMax() > 0) {
+            webResource.addFilter(new RetryFilter(xrayConfig.getHttpRetryMax(), xrayConfig.getHttpRetryDelayMillis(), xrayConfig.getHttpRetryMaxDelayMillis()));
         }
     }
 
@@ -72,6 +101,20 @@ public class XrayConnector implements Loggable {
         JiraUtils.uploadAttachment(webResource, issueKey, is, fileName);
     }
 
+    /**
+     * @return The rate limiter if {@link XrayConfig#getHttpRateLimit()} is set
+     */
+    public Optional<RateLimitFilter> getRateLimitFilter() {
+        return Optional.ofNullable(rateLimitFilter);
+    }
+
+    /**
+     * @return The request metrics if {@link XrayConfig#isHttpMetricsEnabled()} is set
+     */
+    public Optional<XrayMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
     public WebResource getWebResource() {
         return this.webResource;
     }
@@ -0,0 +1,276 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Thread-safe registry of the Jira and Xray request metrics, fed by {@link eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.MetricsFilter}.
+ * Besides the metrics per endpoint it holds named counters, gauges and timers of the synchronizer.
+ */
+public class XrayMetrics {
+
+    /**
+     * Counts requests which have been sent again by the {@link eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter}
+     */
+    public static final String COUNTER_RETRIES = "http.retries";
+    /**
+     * Counts responses with status 429
+     */
+    public static final String COUNTER_THROTTLED = "http.throttled";
+    /**
+     * Counts requests failed without response, e.g. by connection errors
+     */
+    public static final String COUNTER_CONNECTION_ERRORS = "http.connection.errors";
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> timers = new ConcurrentHashMap<>();
+
+    /**
+     * @param endpoint Method and path of the request with keys and ids replaced, e.g. {@code GET api/2/issue/{key}}
+     */
+    public EndpointMetrics getEndpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, EndpointMetrics::new);
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return Collections.unmodifiableMap(new TreeMap<>(endpoints));
+    }
+
+    public void incrementCounter(String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    public long getCounter(String name) {
+        final LongAdder counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * Registers a value which is read when requested, e.g. the size of a queue. A gauge of the same name is replaced.
+     */
+    public void registerGauge(String name, Supplier<? extends Number> gauge) {
+        gauges.put(name, gauge);
+    }
+
+    public Optional<Number> getGauge(String name) {
+        return Optional.ofNullable(gauges.get(name)).map(Supplier::get);
+    }
+
+    public void recordDuration(String name, long durationMillis) {
+        getTimer(name).record(durationMillis);
+    }
+
+    public Histogram getTimer(String name) {
+        return timers.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    /**
+     * @return Multi-line summary of all metrics, endpoints ordered by their total latency
+     */
+    public String createSummary() {
+        final StringBuilder summary = new StringBuilder("Xray request metrics");
+        endpoints.values().stream()
+                .sorted(Comparator.comparingLong((EndpointMetrics endpoint) -> endpoint.getLatency().getTotalMillis()).reversed())
+                .forEach(endpoint -> summary.append(String.format(
+                        "%n  %s: %d requests, status %s, latency %s, sent %s, received %s",
+                        endpoint.getName(),
+                        endpoint.getRequestCount(),
+                        endpoint.getStatusCounts(),
+                        endpoint.getLatency().createSummary(),
+                        formatBytes(endpoint.getRequestBytes()),
+                        formatBytes(endpoint.getResponseBytes())
+                )));
+        new TreeMap<>(counters).forEach((name, counter) -> summary.append(String.format("%n  %s: %d", name, counter.sum())));
+        new TreeMap<>(gauges).forEach((name, gauge) -> summary.append(String.format("%n  %s: %s", name, gauge.get())));
+        new TreeMap<>(timers).forEach((name, timer) -> summary.append(String.format("%n  %s: %s", name, timer.createSummary())));
+        return summary.toString();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return String.format("%d B", bytes);
+        } else if (bytes < 1024 * 1024) {
+            return String.format("%.1f KiB", bytes / 1024d);
+        }
+        return String.format("%.1f MiB", bytes / (1024d * 1024d));
+    }
+
+    public static class EndpointMetrics {
+        private final String name;
+        private final LongAdder requestCount = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+        private final Histogram latency = new Histogram();
+
+        private EndpointMetrics(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @param status Status code of the response or 0 if no response was received
+         */
+        public void recordResponse(int status, long latencyMillis) {
+            requestCount.increment();
+            statusCounts.computeIfAbsent(status, key -> new LongAdder()).increment();
+            latency.record(latencyMillis);
+        }
+
+        public void addRequestBytes(long bytes) {
+            requestBytes.add(bytes);
+        }
+
+        public void addResponseBytes(long bytes) {
+            responseBytes.add(bytes);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        public long getRequestBytes() {
+            return requestBytes.sum();
+        }
+
+        public long getResponseBytes() {
+            return responseBytes.sum();
+        }
+
+        public Map<Integer, Long> getStatusCounts() {
+            final Map<Integer, Long> counts = new TreeMap<>();
+            statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+            return counts;
+        }
+
+        /**
+         * Time until the response status and headers are received
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+    }
+
+    /**
+     * Histogram of durations with fixed exponential buckets
+     */
+    public static class Histogram {
+        private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000};
+
+        private final LongAdder[] bucketCounts = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        public Histogram() {
+            Arrays.setAll(bucketCounts, bucket -> new LongAdder());
+        }
+
+        public void record(long millis) {
+            int bucket = Arrays.binarySearch(BUCKET_BOUNDS_MILLIS, millis);
+            if (bucket < 0) {
+                bucket = -bucket - 1;
+            }
+            bucketCounts[bucket].increment();
+            count.increment();
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getTotalMillis() {
+            return totalMillis.sum();
+        }
+
+        public long getMaxMillis() {
+            return maxMillis.get();
+        }
+
+        public double getMeanMillis() {
+            final long currentCount = getCount();
+            return currentCount > 0 ? (double) getTotalMillis() / currentCount : 0;
+        }
+
+        /**
+         * @param percentile Between 0 and 100
+         * @return Upper bound of the bucket containing the percentile, at most the maximum recorded duration
+         */
+        public long getPercentileMillis(double percentile) {
+            final long[] counts = getBucketCounts();
+            final long total = Arrays.stream(counts).sum();
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(percentile / 100 * total);
+            long cumulated = 0;
+            for (int bucket = 0; bucket < BUCKET_BOUNDS_MILLIS.length; bucket++) {
+                cumulated += counts[bucket];
+                if (cumulated >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MILLIS[bucket], getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        /**
+         * @return Counts of durations up to the bounds of {@link #getBucketBoundsMillis()}, the last one counts longer durations
+         */
+        public long[] getBucketCounts() {
+            return Arrays.stream(bucketCounts).mapToLong(LongAdder::sum).toArray();
+        }
+
+        public static List<Long> getBucketBoundsMillis() {
+            return Collections.unmodifiableList(Arrays.stream(BUCKET_BOUNDS_MILLIS).boxed().collect(Collectors.toList()));
+        }
+
+        public String createSummary() {
+            return String.format("count %d, mean %.1f ms, p50 %d ms, p95 %d ms, p99 %d ms, max %d ms, total %d ms",
+                    getCount(),
+                    getMeanMillis(),
+                    getPercentileMillis(50),
+                    getPercentileMillis(95),
+                    getPercentileMillis(99),
+                    getMaxMillis(),
+                    getTotalMillis());
+        }
+    }
+}
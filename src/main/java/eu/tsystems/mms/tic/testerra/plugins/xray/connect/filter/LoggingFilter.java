@@ -20,215 +20,391 @@
  *
  */
 
+
 package eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter;
 
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
 import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientRequestAdapter;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.filter.ClientFilter;
 import eu.tsystems.mms.tic.testframework.logging.Loggable;
-import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import javax.ws.rs.core.MultivaluedMap;
 
+/**
+ * Logs requests and responses at debug level with bounded memory and little overhead on the calling thread.
+ * <ul>
+ *     <li>Only the first bytes of request and response entities are captured while they are written and read by the transport,
+ *     the entities are neither serialized twice nor buffered.</li>
+ *     <li>Values of sensitive headers are redacted.</li>
+ *     <li>Only a sample of the requests is logged, if the sample rate is below 1.</li>
+ *     <li>The log messages are formatted and written by a background thread.
+ *     If it cannot keep up, messages are dropped instead of blocking the requests, see {@link #getDroppedMessageCount()}.</li>
+ * </ul>
+ * The response is logged when its entity has been read or closed.
+ */
 public class LoggingFilter extends ClientFilter implements Loggable {
 
-    private static final String REQUEST_PREFIX = "> ";
+    public static final int DEFAULT_MAX_ENTITY_SIZE = 10 * 1024;
+    public static final List<String> DEFAULT_REDACTED_HEADERS = Arrays.asList("Authorization", "Proxy-Authorization", "Cookie", "Set-Cookie");
 
+    private static final String REQUEST_PREFIX = "> ";
     private static final String RESPONSE_PREFIX = "< ";
-
     private static final String NOTIFICATION_PREFIX = "* ";
-    private final int maxEntitySize = 10 * 1024;
-    private long id = 0;
+    private static final String REDACTED_VALUE = "<redacted>";
+    private static final int QUEUE_CAPACITY = 1000;
+
+    /**
+     * Shared by all filters, so that the order of the messages is kept
+     */
+    private static final ExecutorService LOGGING_EXECUTOR = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "Xray-Request-Logging");
+        thread.setDaemon(true);
+        return thread;
+    });
 
-    private void log(StringBuilder b) {
-        log().debug(b.toString());
+    private final int maxEntitySize;
+    private final double sampleRate;
+    private final Set<String> redactedHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    private final AtomicLong id = new AtomicLong();
+    private final LongAdder droppedMessages = new LongAdder();
+
+    public LoggingFilter() {
+        this(DEFAULT_MAX_ENTITY_SIZE, 1, DEFAULT_REDACTED_HEADERS);
+    }
+
+    /**
+     * @param maxEntitySize Maximum logged bytes of each request and response entity, 0 disables entity logging
+     * @param sampleRate Fraction of requests to log between 0 and 1
+     * @param redactedHeaders Names of headers whose values are not logged, case-insensitive
+     */
+    public LoggingFilter(int maxEntitySize, double sampleRate, Collection<String> redactedHeaders) {
+        this.maxEntitySize = Math.max(0, maxEntitySize);
+        this.sampleRate = sampleRate;
+        this.redactedHeaders.addAll(redactedHeaders);
     }
 
     @Override
     public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
-        long id = ++this.id;
-        logRequest(id, request);
-        ClientResponse response = getNext().handle(request);
-        logResponse(id, response);
+        if (!isEnabled() || !isSampled()) {
+            return getNext().handle(request);
+        }
+
+        final long id = this.id.incrementAndGet();
+        final EntityCapture requestEntity = new EntityCapture(maxEntitySize);
+        final ClientRequestAdapter adapter = request.getAdapter();
+        if (request.getEntity() != null) {
+            request.setAdapter(new CapturingRequestAdapter(adapter, requestEntity));
+        }
+
+        final ClientResponse response;
+        try {
+            response = getNext().handle(request);
+        } finally {
+            // Restores the adapter, so that retries don't capture the entity twice
+            request.setAdapter(adapter);
+            // The headers are read after the inner filters have added theirs
+            final List<Map.Entry<String, String>> requestHeaders = copyRequestHeaders(request.getHeaders());
+            final String method = request.getMethod();
+            final String uri = request.getURI().toASCIIString();
+            submit(() -> formatRequest(id, method, uri, requestHeaders, requestEntity));
+        }
+
+        final int status = response.getStatus();
+        final List<Map.Entry<String, String>> responseHeaders = copyResponseHeaders(response.getHeaders());
+        final EntityCapture responseEntity = new EntityCapture(maxEntitySize);
+        final Runnable logResponse = () -> submit(() -> formatResponse(id, status, responseHeaders, responseEntity));
+        if (response.getEntityInputStream() == null || status == 204) {
+            logResponse.run();
+        } else {
+            response.setEntityInputStream(new CapturingInputStream(response.getEntityInputStream(), responseEntity, logResponse));
+        }
         return response;
     }
 
-    //    private void logRequest(long id, ClientRequest request) {
-    //        StringBuilder b = new StringBuilder();
-    //
-    //        printRequestLine(b, id, request);
-    //        printRequestHeaders(b, id, request.getHeaders());
-    //
-    //        if (request.getEntity() != null) {
-    //            request.setAdapter(new Adapter(request.getAdapter(), b));
-    //        } else {
-    //            log(b);
-    //        }
-    //    }
-    private void logRequest(long id, ClientRequest request) {
-        StringBuilder b = new StringBuilder();
+    /**
+     * @return TRUE if messages would be written, which is checked before anything is captured
+     */
+    protected boolean isEnabled() {
+        return log().isDebugEnabled();
+    }
+
+    /**
+     * Writes a formatted message, called by the logging thread
+     */
+    protected void write(String message) {
+        log().debug(message);
+    }
 
-        printRequestLine(b, id, request);
-        printRequestHeaders(b, id, request.getHeaders());
-        printRequestEntity(b, id, request.getEntity());
+    /**
+     * @return Number of messages dropped, because the logging thread could not keep up with the requests
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
+    }
 
-        //        if (request.getEntity() != null) {
-        //            request.setAdapter(new Adapter(request.getAdapter(), b));
-        //        } else {
-        //            log(b);
-        //        }
-        log(b);
+    private boolean isSampled() {
+        return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
     }
 
-    private void printRequestEntity(StringBuilder b, long id, Object entity) {
-        if (entity != null) {
-            prefixId(b, id).append(REQUEST_PREFIX).append("\n").append(entity).append("\n");
+    private void submit(MessageFormatter formatter) {
+        try {
+            LOGGING_EXECUTOR.execute(() -> write(formatter.format()));
+        } catch (RejectedExecutionException e) {
+            droppedMessages.increment();
         }
     }
 
-    private StringBuilder prefixId(StringBuilder b, long id) {
-        b.append(Long.toString(id)).append(" ");
-        return b;
+    private List<Map.Entry<String, String>> copyRequestHeaders(MultivaluedMap<String, Object> headers) {
+        final List<Map.Entry<String, String>> copy = new ArrayList<>(headers.size());
+        for (Map.Entry<String, List<Object>> e : headers.entrySet()) {
+            final StringBuilder value = new StringBuilder();
+            for (Object o : e.getValue()) {
+                if (value.length() > 0) {
+                    value.append(',');
+                }
+                value.append(ClientRequest.getHeaderValue(o));
+            }
+            copy.add(createHeader(e.getKey(), value.toString()));
+        }
+        return copy;
+    }
+
+    private List<Map.Entry<String, String>> copyResponseHeaders(MultivaluedMap<String, String> headers) {
+        final List<Map.Entry<String, String>> copy = new ArrayList<>(headers.size());
+        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+            for (String value : e.getValue()) {
+                copy.add(createHeader(e.getKey(), value));
+            }
+        }
+        return copy;
+    }
+
+    private Map.Entry<String, String> createHeader(String name, String value) {
+        return new AbstractMap.SimpleImmutableEntry<>(name, redactedHeaders.contains(name) ? REDACTED_VALUE : value);
     }
 
-    private void printRequestLine(StringBuilder b, long id, ClientRequest request) {
+    private String formatRequest(long id, String method, String uri, List<Map.Entry<String, String>> headers, EntityCapture entity) {
+        final StringBuilder b = new StringBuilder();
         prefixId(b, id).append(NOTIFICATION_PREFIX).append("Client out-bound request").append("\n");
-        prefixId(b, id).append(REQUEST_PREFIX).append(request.getMethod()).append(" ").
-                append(request.getURI().toASCIIString()).append("\n");
+        prefixId(b, id).append(REQUEST_PREFIX).append(method).append(" ").append(uri).append("\n");
+        printHeaders(b, id, REQUEST_PREFIX, headers);
+        printEntity(b, entity);
+        return b.toString();
     }
 
-    private void printRequestHeaders(StringBuilder b, long id, MultivaluedMap<String, Object> headers) {
-        for (Map.Entry<String, List<Object>> e : headers.entrySet()) {
-            List<Object> val = e.getValue();
-            String header = e.getKey();
+    private String formatResponse(long id, int status, List<Map.Entry<String, String>> headers, EntityCapture entity) {
+        final StringBuilder b = new StringBuilder();
+        prefixId(b, id).append(NOTIFICATION_PREFIX).append("Client in-bound response").append("\n");
+        prefixId(b, id).append(RESPONSE_PREFIX).append(status).append("\n");
+        printHeaders(b, id, RESPONSE_PREFIX, headers);
+        prefixId(b, id).append(RESPONSE_PREFIX).append("\n");
+        printEntity(b, entity);
+        return b.toString();
+    }
 
-            if (val.size() == 1) {
-                prefixId(b, id).append(REQUEST_PREFIX).append(header).append(": ").append(ClientRequest.getHeaderValue(val.get(0))).append("\n");
-            } else {
-                StringBuilder sb = new StringBuilder();
-                boolean add = false;
-                for (Object o : val) {
-                    if (add) {
-                        sb.append(',');
-                    }
-                    add = true;
-                    sb.append(ClientRequest.getHeaderValue(o));
-                }
-                prefixId(b, id).append(REQUEST_PREFIX).append(header).append(": ").append(sb.toString()).append("\n");
-            }
+    private StringBuilder prefixId(StringBuilder b, long id) {
+        b.append(id).append(" ");
+        return b;
+    }
+
+    private void printHeaders(StringBuilder b, long id, String prefix, List<Map.Entry<String, String>> headers) {
+        for (Map.Entry<String, String> header : headers) {
+            prefixId(b, id).append(prefix).append(header.getKey()).append(": ").append(header.getValue()).append("\n");
         }
     }
 
-    private void printEntity(StringBuilder b, byte[] entity) {
-        if (entity.length == 0) {
+    private void printEntity(StringBuilder b, EntityCapture entity) {
+        if (entity.getTotalSize() == 0) {
             return;
         }
-        b.append(new String(entity)).append("\n");
+        b.append(entity.getCapturedString());
+        if (entity.isTruncated()) {
+            b.append(String.format("...more... (%d bytes)", entity.getTotalSize()));
+        }
+        b.append("\n");
+    }
+
+    @FunctionalInterface
+    private interface MessageFormatter {
+        String format();
     }
 
-    private void logResponse(long id, ClientResponse response) {
-        StringBuilder b = new StringBuilder();
+    /**
+     * Keeps the first bytes of an entity and counts all of them.
+     * It is written by the thread sending or reading the entity and read by the logging thread after it has been submitted.
+     */
+    private static final class EntityCapture {
+        private final int maxSize;
+        private ByteArrayOutputStream captured;
+        private long totalSize = 0;
 
-        printResponseLine(b, id, response);
-        printResponseHeaders(b, id, response.getHeaders());
+        EntityCapture(int maxSize) {
+            this.maxSize = maxSize;
+        }
 
-        InputStream stream = response.getEntityInputStream();
-        try {
-            if (!response.getEntityInputStream().markSupported()) {
-                stream = new BufferedInputStream(stream);
-                response.setEntityInputStream(stream);
+        void write(int b) {
+            if (totalSize < maxSize) {
+                getCaptured().write(b);
             }
+            totalSize++;
+        }
 
-            stream.mark(maxEntitySize + 1);
-            byte[] entity = new byte[maxEntitySize + 1];
-            int entitySize = stream.read(entity);
+        void write(byte[] b, int off, int len) {
+            final long remaining = maxSize - totalSize;
+            if (remaining > 0) {
+                getCaptured().write(b, off, (int) Math.min(len, remaining));
+            }
+            totalSize += len;
+        }
 
-            if (entitySize > 0) {
-                b.append(new String(entity, 0, Math.min(entitySize, maxEntitySize)));
-                if (entitySize > maxEntitySize) {
-                    b.append("...more...");
-                }
-                b.append('\n');
-                stream.reset();
+        private ByteArrayOutputStream getCaptured() {
+            if (captured == null) {
+                captured = new ByteArrayOutputStream(Math.min(maxSize, 1024));
             }
-        } catch (IOException ex) {
-            throw new ClientHandlerException(ex);
+            return captured;
+        }
+
+        long getTotalSize() {
+            return totalSize;
+        }
+
+        boolean isTruncated() {
+            return totalSize > maxSize;
+        }
+
+        String getCapturedString() {
+            return captured == null ? "" : new String(captured.toByteArray(), StandardCharsets.UTF_8);
         }
-        log(b);
     }
 
-    private void printResponseLine(StringBuilder b, long id, ClientResponse response) {
-        prefixId(b, id).append(NOTIFICATION_PREFIX).
-                append("Client in-bound response").append("\n");
-        prefixId(b, id).append(RESPONSE_PREFIX).
-                append(Integer.toString(response.getStatus())).
-                append("\n");
+    private static final class CapturingRequestAdapter extends AbstractClientRequestAdapter {
+        private final EntityCapture entity;
+
+        CapturingRequestAdapter(ClientRequestAdapter adapter, EntityCapture entity) {
+            super(adapter);
+            this.entity = entity;
+        }
+
+        @Override
+        public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
+            final OutputStream adapted = getAdapter() != null ? getAdapter().adapt(request, out) : out;
+            return new CapturingOutputStream(adapted, entity);
+        }
     }
 
-    private void printResponseHeaders(StringBuilder b, long id, MultivaluedMap<String, String> headers) {
-        for (Map.Entry<String, List<String>> e : headers.entrySet()) {
-            String header = e.getKey();
-            for (String value : e.getValue()) {
-                prefixId(b, id).append(RESPONSE_PREFIX).append(header).append(": ").
-                        append(value).append("\n");
-            }
+    private static final class CapturingOutputStream extends FilterOutputStream {
+        private final EntityCapture entity;
+
+        CapturingOutputStream(OutputStream out, EntityCapture entity) {
+            super(out);
+            this.entity = entity;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            entity.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            entity.write(b, off, len);
         }
-        prefixId(b, id).append(RESPONSE_PREFIX).append("\n");
     }
 
-    //    private final class Adapter extends AbstractClientRequestAdapter {
-    //        private final StringBuilder b;
-    //
-    //        Adapter(ClientRequestAdapter cra, StringBuilder b) {
-    //            super(cra);
-    //            this.b = b;
-    //        }
-    //
-    //        public OutputStream adapt(ClientRequest request, OutputStream out) throws IOException {
-    //            return new LoggingOutputStream(getAdapter().adapt(request, out), b);
-    //        }
-    //
-    //    }
-
-    //    private final class LoggingOutputStream extends OutputStream {
-    //        private final OutputStream out;
-    //
-    //        private final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    //
-    //        private final StringBuilder b;
-    //
-    //        LoggingOutputStream(OutputStream out, StringBuilder b) {
-    //            this.out = out;
-    //            this.b = b;
-    //        }
-    //
-    //        @Override
-    //        public void write(byte[] b) throws IOException {
-    //            baos.write(b);
-    //            out.write(b);
-    //        }
-    //
-    //        @Override
-    //        public void write(byte[] b, int off, int len) throws IOException {
-    //            baos.write(b, off, len);
-    //            out.write(b, off, len);
-    //        }
-    //
-    //        @Override
-    //        public void write(int b) throws IOException {
-    //            baos.write(b);
-    //            out.write(b);
-    //        }
-    //
-    //        @Override
-    //        public void close() throws IOException {
-    //            printEntity(b, baos.toByteArray());
-    //            log(b);
-    //            out.close();
-    //        }
-    //    }
+    /**
+     * Captures the entity while it is read and submits the response message at the end of the entity or when it is closed
+     */
+    private static final class CapturingInputStream extends FilterInputStream {
+        private final EntityCapture entity;
+        private final Runnable onComplete;
+        private boolean completed = false;
+
+        CapturingInputStream(InputStream in, EntityCapture entity, Runnable onComplete) {
+            super(in);
+            this.entity = entity;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) {
+                entity.write(b);
+            } else {
+                complete();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                entity.write(b, off, read);
+            } else if (read < 0) {
+                complete();
+            }
+            return read;
+        }
+
+        /**
+         * Re-reading marked bytes would capture them twice
+         */
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (!completed) {
+                completed = true;
+                onComplete.run();
+            }
+        }
+    }
 }
@@ -0,0 +1,163 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter;
+
+import com.sun.jersey.api.client.AbstractClientRequestAdapter;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.XrayMetrics;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Records every attempt of a request in {@link XrayMetrics}: latency, status, sent and received bytes.
+ * Should be the innermost filter, so that retries are recorded as separate attempts and waiting for the rate limit is not measured.
+ * Received bytes are counted while the response entity is read.
+ */
+public class MetricsFilter extends ClientFilter {
+
+    private static final String ATTEMPT_PROPERTY = MetricsFilter.class.getName() + ".attempt";
+    private static final String REST_PATH = "/rest/";
+    private static final Pattern ISSUE_KEY_PATTERN = Pattern.compile("[A-Z][A-Z0-9_]*-\\d+");
+    private static final Pattern API_VERSION_PATTERN = Pattern.compile("^[^/]+/\\d+(?:\\.\\d+)*/");
+    private static final Pattern ID_PATTERN = Pattern.compile("/\\d+(?=/|$)");
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private final XrayMetrics metrics;
+
+    public MetricsFilter(XrayMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+        final XrayMetrics.EndpointMetrics endpoint = metrics.getEndpoint(getEndpointName(request));
+
+        // The retry filter passes the same request again, which already counts its written bytes
+        if (request.getProperties().put(ATTEMPT_PROPERTY, Boolean.TRUE) != null) {
+            metrics.incrementCounter(XrayMetrics.COUNTER_RETRIES);
+        } else if (request.getEntity() != null) {
+            request.setAdapter(new CountingRequestAdapter(request, endpoint));
+        }
+
+        final long start = System.nanoTime();
+        final ClientResponse response;
+        try {
+            response = getNext().handle(request);
+        } catch (ClientHandlerException e) {
+            endpoint.recordResponse(0, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            metrics.incrementCounter(XrayMetrics.COUNTER_CONNECTION_ERRORS);
+            throw e;
+        }
+        endpoint.recordResponse(response.getStatus(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        if (response.getStatus() == STATUS_TOO_MANY_REQUESTS) {
+            metrics.incrementCounter(XrayMetrics.COUNTER_THROTTLED);
+        }
+        if (response.getEntityInputStream() != null) {
+            response.setEntityInputStream(new CountingInputStream(response.getEntityInputStream(), endpoint));
+        }
+        return response;
+    }
+
+    /**
+     * @return Method and path relative to the REST API, with issue keys and ids replaced, keeping the API version like <code>api/2/</code>
+     */
+    static String getEndpointName(ClientRequest request) {
+        String path = request.getURI().getPath();
+        final int restIndex = path.indexOf(REST_PATH);
+        path = restIndex >= 0 ? path.substring(restIndex + REST_PATH.length()) : path.replaceFirst("^/", "");
+        path = ISSUE_KEY_PATTERN.matcher(path).replaceAll("{key}");
+        final Matcher versionMatcher = API_VERSION_PATTERN.matcher(path);
+        final String apiVersion = versionMatcher.lookingAt() ? versionMatcher.group() : "";
+        path = apiVersion + ID_PATTERN.matcher(path.substring(apiVersion.length())).replaceAll("/{id}");
+        return String.format("%s %s", request.getMethod(), path);
+    }
+
+    private static class CountingRequestAdapter extends AbstractClientRequestAdapter {
+        private final XrayMetrics.EndpointMetrics endpoint;
+
+        CountingRequestAdapter(ClientRequest request, XrayMetrics.EndpointMetrics endpoint) {
+            super(request.getAdapter());
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public OutputStream adapt(ClientRequest request, OutputStream outputStream) throws IOException {
+            final OutputStream adaptedStream = getAdapter() != null ? getAdapter().adapt(request, outputStream) : outputStream;
+            return new FilterOutputStream(adaptedStream) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    endpoint.addRequestBytes(1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                    endpoint.addRequestBytes(len);
+                }
+            };
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private final XrayMetrics.EndpointMetrics endpoint;
+
+        CountingInputStream(InputStream in, XrayMetrics.EndpointMetrics endpoint) {
+            super(in);
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = in.read();
+            if (b >= 0) {
+                endpoint.addResponseBytes(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int count = in.read(b, off, len);
+            if (count > 0) {
+                endpoint.addResponseBytes(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            final long skipped = in.skip(n);
+            endpoint.addResponseBytes(skipped);
+            return skipped;
+        }
+    }
+}
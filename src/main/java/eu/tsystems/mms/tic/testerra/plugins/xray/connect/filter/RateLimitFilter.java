@@ -0,0 +1,109 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the request rate by a token bucket.
+ * Requests exceeding the rate are delayed instead of rejected.
+ * Waiting requests reserve their tokens in advance, so they are sent in order of arrival.
+ */
+public class RateLimitFilter extends ClientFilter implements Loggable {
+
+    private final double permitsPerSecond;
+    private final double burst;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    private final LongAdder delayedRequests = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param permitsPerSecond Sustained request rate
+     * @param burst Number of requests that can be sent at once after an idle period
+     */
+    public RateLimitFilter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = Math.max(1, burst);
+        this.availablePermits = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+        final long waitNanos = reserve();
+        if (waitNanos > 0) {
+            delayedRequests.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            log().debug(String.format("Delay %s %s by %d ms", request.getMethod(), request.getURI(), TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ClientHandlerException(String.format("Interrupted while waiting for rate limit of %s %s", request.getMethod(), request.getURI()));
+            }
+        }
+        return getNext().handle(request);
+    }
+
+    /**
+     * Takes a permit, which may be borrowed from the future.
+     *
+     * @return Nanoseconds to wait until the permit is available
+     */
+    private synchronized long reserve() {
+        final long now = System.nanoTime();
+        availablePermits = Math.min(burst, availablePermits + (now - lastRefillNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastRefillNanos = now;
+        availablePermits -= 1;
+        if (availablePermits >= 0) {
+            return 0;
+        }
+        return (long) (-availablePermits / permitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getDelayedRequests() {
+        return delayedRequests.sum();
+    }
+
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum());
+    }
+
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+}
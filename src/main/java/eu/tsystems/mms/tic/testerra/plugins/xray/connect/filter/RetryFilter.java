@@ -0,0 +1,179 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.filter.ClientFilter;
+import com.sun.jersey.multipart.MultiPart;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries requests which failed because of server overload or connection errors
+ * with exponential backoff and jitter. A {@code Retry-After} header of the response takes precedence.
+ * <p>
+ * Non-idempotent requests (POST except searches) are only retried on 429 and 503,
+ * because these responses guarantee that the request was not processed.
+ * Requests with streamed entities are never retried, since their entity cannot be sent twice.
+ */
+public class RetryFilter extends ClientFilter implements Loggable {
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_BAD_GATEWAY = 502;
+    private static final int STATUS_SERVICE_UNAVAILABLE = 503;
+    private static final int STATUS_GATEWAY_TIMEOUT = 504;
+
+    private final int maxRetries;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryFilter(int maxRetries, long initialDelayMillis, long maxDelayMillis) {
+        this.maxRetries = maxRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+        final boolean idempotent = isIdempotent(request);
+        final boolean repeatable = isRepeatable(request.getEntity());
+
+        for (int retry = 0; ; retry++) {
+            final boolean retryAllowed = repeatable && retry < maxRetries;
+            final ClientResponse response;
+            try {
+                response = getNext().handle(request);
+            } catch (ClientHandlerException e) {
+                if (!retryAllowed || !idempotent) {
+                    throw e;
+                }
+                log().warn(String.format("%s %s failed: %s", request.getMethod(), request.getURI(), e.getMessage()));
+                if (!sleep(getBackoffMillis(retry))) {
+                    throw e;
+                }
+                continue;
+            }
+
+            if (!retryAllowed || !isRetryableStatus(response.getStatus(), idempotent)) {
+                return response;
+            }
+
+            long delayMillis = getRetryAfterMillis(response.getHeaders().getFirst("Retry-After"));
+            if (delayMillis < 0) {
+                delayMillis = getBackoffMillis(retry);
+            }
+            delayMillis = Math.min(delayMillis, maxDelayMillis);
+            log().warn(String.format("%s %s responded %d, retry %d/%d in %d ms", request.getMethod(), request.getURI(), response.getStatus(), retry + 1, maxRetries, delayMillis));
+            response.close();
+            if (!sleep(delayMillis)) {
+                throw new ClientHandlerException(String.format("Interrupted while waiting for retry of %s %s", request.getMethod(), request.getURI()));
+            }
+        }
+    }
+
+    /**
+     * GET, PUT, DELETE, HEAD, OPTIONS and POST searches don't change the result when repeated.
+     */
+    private static boolean isIdempotent(ClientRequest request) {
+        switch (request.getMethod()) {
+            case "POST":
+                return request.getURI().getPath().endsWith("/search");
+            case "PATCH":
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private static boolean isRetryableStatus(int status, boolean idempotent) {
+        switch (status) {
+            case STATUS_TOO_MANY_REQUESTS:
+            case STATUS_SERVICE_UNAVAILABLE:
+                return true;
+            case STATUS_BAD_GATEWAY:
+            case STATUS_GATEWAY_TIMEOUT:
+                return idempotent;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param retryAfter Header value as delay in seconds or HTTP date
+     * @return The delay in milliseconds or -1 if the header is missing or invalid
+     */
+    private static long getRetryAfterMillis(String retryAfter) {
+        if (StringUtils.isBlank(retryAfter)) {
+            return -1;
+        }
+        final String value = retryAfter.trim();
+        if (StringUtils.isNumeric(value)) {
+            return Long.parseLong(value) * 1000;
+        }
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: a random delay between the half and the full exponential delay.
+     */
+    private long getBackoffMillis(int retry) {
+        final long exponentialDelay = Math.min(maxDelayMillis, initialDelayMillis << Math.min(retry, 30));
+        final long halfDelay = exponentialDelay / 2;
+        return halfDelay + ThreadLocalRandom.current().nextLong(exponentialDelay - halfDelay + 1);
+    }
+
+    private boolean isRepeatable(Object entity) {
+        if (entity instanceof InputStream) {
+            return false;
+        }
+        if (entity instanceof MultiPart) {
+            return ((MultiPart) entity).getBodyParts().stream().allMatch(bodyPart -> isRepeatable(bodyPart.getEntity()));
+        }
+        return true;
+    }
+
+    /**
+     * @return False if interrupted
+     */
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
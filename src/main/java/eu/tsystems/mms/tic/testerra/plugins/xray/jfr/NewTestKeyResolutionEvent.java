@@ -0,0 +1,43 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Bulk search of the Tests created by an import, to replace their temporary keys
+ */
+@Name(NewTestKeyResolutionEvent.NAME)
+@Label("Xray New Test Key Resolution")
+@Description("Search of the keys of Tests created by an import")
+public class NewTestKeyResolutionEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.NewTestKeyResolution";
+
+    @Label("Imported Tests")
+    public int importedTestCount;
+
+    @Label("Resolved Keys")
+    public int resolvedKeyCount;
+}
@@ -0,0 +1,53 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A single import request of test runs, which is one of several if the import is split into chunks
+ */
+@Name(TestExecutionImportEvent.NAME)
+@Label("Xray Test Execution Import")
+@Description("Import request of test runs into a Test Execution")
+public class TestExecutionImportEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.TestExecutionImport";
+
+    @Label("Test Execution Key")
+    public String testExecutionKey;
+
+    @Label("Created")
+    @Description("The Test Execution was created by this import")
+    public boolean created;
+
+    @Label("Test Runs")
+    public int testRunCount;
+
+    @Label("Payload Size")
+    @Description("Size of the last sent request entity")
+    @DataAmount
+    public long payloadBytes;
+}
@@ -0,0 +1,50 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Search of the Tests of a test method, or of many test methods when batch search is enabled
+ */
+@Name(TestResolutionEvent.NAME)
+@Label("Xray Test Resolution")
+@Description("Search of existing Tests by the queries of the mapper")
+public class TestResolutionEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.TestResolution";
+
+    @Label("Method")
+    @Description("Qualified name of the test method, empty for batch searches")
+    public String methodName;
+
+    @Label("Queries")
+    public int queryCount;
+
+    @Label("Found Tests")
+    public int foundCount;
+
+    @Label("Test Keys")
+    public String testKeys;
+}
@@ -0,0 +1,48 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Lookup of the Test Set of a test class by key or by the query of the mapper
+ */
+@Name(TestSetResolutionEvent.NAME)
+@Label("Xray Test Set Resolution")
+@Description("Lookup of the Test Set of a test class")
+public class TestSetResolutionEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.TestSetResolution";
+
+    @Label("Class")
+    public String className;
+
+    @Label("Test Set Key")
+    @Description("Key of the existing Test Set, empty if a new one will be created or none was found")
+    public String testSetKey;
+
+    @Label("Tests")
+    @Description("Number of Tests the existing Test Set contains")
+    public int testCount;
+}
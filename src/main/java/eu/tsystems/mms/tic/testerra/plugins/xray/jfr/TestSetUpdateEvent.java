@@ -0,0 +1,52 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Creation of a Test Set or update of its fields and Tests
+ */
+@Name(TestSetUpdateEvent.NAME)
+@Label("Xray Test Set Update")
+@Description("Creation or update of a Test Set")
+public class TestSetUpdateEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.TestSetUpdate";
+
+    @Label("Test Set Key")
+    public String testSetKey;
+
+    @Label("Created")
+    public boolean created;
+
+    @Label("Fields Updated")
+    public boolean fieldsUpdated;
+
+    @Label("Added Tests")
+    public int addedTestCount;
+
+    @Label("Tests")
+    public int testCount;
+}
@@ -0,0 +1,47 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Transitions of an issue, usually the Test Execution, through the requested status categories
+ */
+@Name(TransitionChainEvent.NAME)
+@Label("Xray Transition Chain")
+@Description("Transitions of an issue to the requested status categories")
+public class TransitionChainEvent extends XraySyncEvent {
+
+    public static final String NAME = "eu.tsystems.xray.TransitionChain";
+
+    @Label("Issue Key")
+    public String issueKey;
+
+    @Label("Status Categories")
+    @Description("Requested status categories in order")
+    public String statusCategories;
+
+    @Label("Performed Transitions")
+    public int transitionCount;
+}
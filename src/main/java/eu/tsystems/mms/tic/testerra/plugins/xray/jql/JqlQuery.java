@@ -24,6 +24,7 @@ package eu.tsystems.mms.tic.testerra.plugins.xray.jql;
 
 import com.google.common.collect.Sets;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -46,6 +47,10 @@ public class JqlQuery implements JqlCreator {
         return new JqlQuery(union);
     }
 
+    public Set<JqlCondition> getConditions() {
+        return Collections.unmodifiableSet(jqlConditions);
+    }
+
     @Override
     public String createJql() {
         return jqlConditions.stream().map(JqlCreator::createJql).collect(Collectors.joining(" AND "));
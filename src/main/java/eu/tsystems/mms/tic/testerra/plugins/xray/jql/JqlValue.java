@@ -35,6 +35,10 @@ public abstract class JqlValue implements JqlOperand {
         value = s;
     }
 
+    public String getValue() {
+        return value;
+    }
+
     @Override
     public String createJql() {
         if (StringUtils.containsAny(value, reservedChars)) {
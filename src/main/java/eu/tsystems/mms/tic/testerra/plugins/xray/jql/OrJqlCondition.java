@@ -0,0 +1,81 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.jql;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.Operator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Combines conditions of the same field by OR, like
+ * {@code (summary ~ "\"first\"" OR summary ~ "\"second\"")}
+ */
+public class OrJqlCondition implements JqlCondition {
+
+    private final List<JqlCondition> jqlConditions;
+
+    public OrJqlCondition(final List<? extends JqlCondition> jqlConditions) {
+        if (jqlConditions.isEmpty()) {
+            throw new IllegalArgumentException("At least one condition is required");
+        }
+        final String field = jqlConditions.get(0).getField();
+        if (jqlConditions.stream().anyMatch(jqlCondition -> !field.equals(jqlCondition.getField()))) {
+            throw new IllegalArgumentException(String.format("All conditions must refer to field %s", field));
+        }
+        this.jqlConditions = Collections.unmodifiableList(new ArrayList<>(jqlConditions));
+    }
+
+    public List<JqlCondition> getConditions() {
+        return jqlConditions;
+    }
+
+    @Override
+    public String getField() {
+        return jqlConditions.get(0).getField();
+    }
+
+    /**
+     * @return The operator of the first condition
+     */
+    @Override
+    public Operator getOperator() {
+        return jqlConditions.get(0).getOperator();
+    }
+
+    /**
+     * @return The operand of the first condition
+     */
+    @Override
+    public JqlOperand getOperand() {
+        return jqlConditions.get(0).getOperand();
+    }
+
+    @Override
+    public String createJql() {
+        if (jqlConditions.size() == 1) {
+            return jqlConditions.get(0).createJql();
+        }
+        return JqlUtils.wrapInBrackets(jqlConditions.stream().map(JqlCreator::createJql).collect(Collectors.joining(" OR ")));
+    }
+}
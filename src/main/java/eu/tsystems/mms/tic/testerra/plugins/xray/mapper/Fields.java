@@ -20,6 +20,7 @@ public enum Fields implements Field {
     ISSUE_TYPE(new NameField("issuetype")),
     ASSIGNEE(new NameField("assignee")),
     ATTACHMENT(new NameField("attachment")),
+    UPDATED(new NameField("updated")),
     ;
 
     private final Field field;
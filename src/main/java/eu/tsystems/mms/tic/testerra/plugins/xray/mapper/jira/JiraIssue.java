@@ -169,6 +169,14 @@ public class JiraIssue extends JiraKeyReference implements Loggable {
         this.fields.put(Fields.SUMMARY.getFieldName(), summary);
     }
 
+    /**
+     * Returns the last modification date, which is read only in Jira
+     */
+    @JsonIgnore
+    public Date getUpdated() {
+        return getDateFromField(Fields.UPDATED.getFieldName()).orElse(null);
+    }
+
     @JsonIgnore
     public JiraStatus getStatus() {
         return getOrCreateEntity(Fields.STATUS.getFieldName(), JiraStatus::new);
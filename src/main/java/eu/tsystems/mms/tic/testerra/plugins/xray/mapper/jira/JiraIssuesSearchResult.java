@@ -26,6 +26,8 @@ import java.util.Set;
 
 public class JiraIssuesSearchResult {
 
+    private int startAt;
+    private int maxResults;
     private int total;
     private Set<JiraIssue> issues;
 
@@ -37,6 +39,22 @@ public class JiraIssuesSearchResult {
         this.issues = issues;
     }
 
+    public int getStartAt() {
+        return startAt;
+    }
+
+    public void setStartAt(final int startAt) {
+        this.startAt = startAt;
+    }
+
+    public int getMaxResults() {
+        return maxResults;
+    }
+
+    public void setMaxResults(final int maxResults) {
+        this.maxResults = maxResults;
+    }
+
     public int getTotal() {
         return total;
     }
@@ -23,24 +23,38 @@ package eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestType;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraError;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraKeyReference;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraNameReference;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ArrayUtils;
 
 import javax.activation.MimetypesFileTypeMap;
 import javax.ws.rs.core.MediaType;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -107,6 +121,14 @@ public class XrayTestExecutionImport {
         public List<JiraError> getError() {
             return Arrays.asList(this.error);
         }
+
+        /**
+         * Adds the results of another import, e.g. of another chunk of the same Test Execution
+         */
+        public void merge(ResultTestIssueImport other) {
+            this.success = ArrayUtils.addAll(this.success, other.success);
+            this.error = ArrayUtils.addAll(this.error, other.error);
+        }
     }
 
     public static class Info extends AbstractInfo {
@@ -238,8 +260,15 @@ public class XrayTestExecutionImport {
             }
         }
 
+        /**
+         * Evidences created from a file only keep the file reference.
+         * The file is base64 encoded on serialization directly into the JSON output,
+         * so it has to exist until the test execution is imported. Otherwise the evidence is skipped.
+         */
+        @JsonSerialize(using = Evidence.Serializer.class)
         public static class Evidence {
             private String data;
+            private File file;
             private String filename;
             private String contentType;
 
@@ -248,9 +277,11 @@ public class XrayTestExecutionImport {
             }
 
             public Evidence(File file) throws IOException {
+                if (!file.isFile() || !file.canRead()) {
+                    throw new FileNotFoundException(file.getAbsolutePath());
+                }
+                this.file = file;
                 this.filename = file.getName();
-                byte[] encoded = Base64.encodeBase64(FileUtils.readFileToByteArray(file));
-                this.data = new String(encoded, StandardCharsets.US_ASCII);
                 MimetypesFileTypeMap fileTypeMap = new MimetypesFileTypeMap();
                 this.contentType = fileTypeMap.getContentType(file.getName());
             }
@@ -275,12 +306,58 @@ public class XrayTestExecutionImport {
                 this.filename = filename;
             }
 
+            /**
+             * Encodes the referenced file into memory, if this evidence was created from a file.
+             */
             public String getData() {
+                if (data == null && file != null) {
+                    try {
+                        return new String(Base64.encodeBase64(FileUtils.readFileToByteArray(file)), StandardCharsets.US_ASCII);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
                 return data;
             }
 
             public void setData(String data) {
                 this.data = data;
+                this.file = null;
+            }
+
+            public Optional<File> getFile() {
+                return Optional.ofNullable(file);
+            }
+
+            /**
+             * Skips evidences of deleted files instead of failing the whole import.
+             * Writing nothing leaves the evidence out of its array.
+             */
+            public static class Serializer extends JsonSerializer<Evidence> implements Loggable {
+
+                @Override
+                public void serialize(Evidence evidence, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                    if (evidence.file != null && !evidence.file.isFile()) {
+                        log().warn(String.format("Skip evidence of missing file %s", evidence.file.getAbsolutePath()));
+                        return;
+                    }
+                    generator.writeStartObject();
+                    if (evidence.file != null) {
+                        generator.writeFieldName("data");
+                        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(evidence.file))) {
+                            generator.writeBinary(Base64Variants.MIME_NO_LINEFEEDS, inputStream, (int) evidence.file.length());
+                        }
+                    } else if (evidence.data != null) {
+                        generator.writeStringField("data", evidence.data);
+                    }
+                    if (evidence.filename != null) {
+                        generator.writeStringField("filename", evidence.filename);
+                    }
+                    if (evidence.contentType != null) {
+                        generator.writeStringField("contentType", evidence.contentType);
+                    }
+                    generator.writeEndObject();
+                }
             }
         }
 
@@ -429,6 +506,12 @@ public class XrayTestExecutionImport {
     private ResultTestIssueImport resultTestIssueImport;
     private final Set<TestRun> testRuns = new HashSet<>();
 
+    /**
+     * Used for deserialization of exported imports
+     */
+    private XrayTestExecutionImport() {
+    }
+
     public XrayTestExecutionImport(String testExecutionKey) {
         this.testExecutionKey = testExecutionKey;
     }
@@ -459,6 +542,25 @@ public class XrayTestExecutionImport {
         return info;
     }
 
+    /**
+     * Creates an import for the same Test Execution and info, containing only the given test runs
+     */
+    public XrayTestExecutionImport copyWithTests(Collection<TestRun> testRuns) {
+        final XrayTestExecutionImport copy = new XrayTestExecutionImport(testExecutionKey);
+        copy.info.setSummary(info.getSummary());
+        copy.info.setDescription(info.getDescription());
+        copy.info.project = info.project;
+        copy.info.version = info.version;
+        copy.info.revision = info.revision;
+        copy.info.user = info.user;
+        copy.info.startDate = info.startDate;
+        copy.info.finishDate = info.finishDate;
+        copy.info.testPlanKey = info.testPlanKey;
+        copy.info.testEnvironments = info.testEnvironments;
+        copy.testRuns.addAll(testRuns);
+        return copy;
+    }
+
     public void setTestExecutionKey(String testExecutionKey) {
         this.testExecutionKey = testExecutionKey;
     }
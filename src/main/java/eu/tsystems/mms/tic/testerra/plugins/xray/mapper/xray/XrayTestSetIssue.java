@@ -30,6 +30,7 @@ import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.XrayMapper;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.testng.Assert;
 
 public class XrayTestSetIssue extends XrayIssue {
@@ -56,13 +57,22 @@ public class XrayTestSetIssue extends XrayIssue {
         super(map);
     }
 
+    /**
+     * Returns a thread-safe list, because Tests are added from parallel test methods
+     * while the list may be read by the synchronization.
+     */
     @JsonIgnore
-    public List<String> getTestKeys() {
-        return getOrCreateStringList(Fields.TEST_SET_TESTS.getFieldName());
+    public synchronized List<String> getTestKeys() {
+        return getOrCreateFieldList(Fields.TEST_SET_TESTS.getFieldName(), list -> {
+            if (list instanceof CopyOnWriteArrayList) {
+                return (List<String>) list;
+            }
+            return new CopyOnWriteArrayList<>((List<String>) list);
+        });
     }
 
-    public void setTestKeys(List<String> testKeys) {
-        this.getFields().put(Fields.TEST_SET_TESTS.getFieldName(), testKeys);
+    public synchronized void setTestKeys(List<String> testKeys) {
+        this.getFields().put(Fields.TEST_SET_TESTS.getFieldName(), testKeys != null ? new CopyOnWriteArrayList<>(testKeys) : null);
     }
 
     public void addTestKeys(Set<String> testKeys) {
@@ -28,9 +28,18 @@ import eu.tsystems.mms.tic.testerra.plugins.xray.annotation.XrayTest;
 import eu.tsystems.mms.tic.testerra.plugins.xray.annotation.XrayTestSet;
 import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
 import eu.tsystems.mms.tic.testerra.plugins.xray.connect.XrayConnector;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.XrayMetrics;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.FlushEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.NewTestKeyResolutionEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestExecutionLookupEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestResolutionEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestSetResolutionEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestSetUpdateEvent;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.IssueType;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestType;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Field;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraKeyReference;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraNameReference;
@@ -57,21 +66,30 @@ import org.testng.ITestResult;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public abstract class AbstractXrayResultsSynchronizer implements
@@ -80,16 +98,52 @@ public abstract class AbstractXrayResultsSynchronizer implements
         ExecutionFinishEvent.Listener,
         Loggable {
     private static final String VENDOR_PREFIX = "Testerra Xray connector";
+    public static final String METRIC_TEST_RUN_SYNC_QUEUE = "sync.queue.testRuns";
+    public static final String METRIC_TEST_RUN_SYNC_QUEUE_MAX = "sync.queue.testRuns.max";
+    public static final String METRIC_TEST_SET_SYNC_QUEUE = "sync.queue.testSets";
+    public static final String METRIC_PENDING_TEST_LOOKUPS = "sync.queue.pendingTestLookups";
+    public static final String METRIC_FLUSH_DURATION = "sync.flush.duration";
+    public static final String METRIC_IMPORT_DURATION = "sync.import.duration";
     private boolean isSyncEnabled = false;
     private XrayTestExecutionIssue testExecutionIssue;
     private XrayMapper xrayMapper;
-    private XrayUtils xrayUtils;
-    private final HashMap<String, XrayTestSetIssue> testSetCacheByClassName = new HashMap<>();
-    private final HashMap<String, XrayTestIssue> testCacheByMethodName = new HashMap<>();
+    private volatile XrayConnector xrayConnector;
+    private volatile XrayUtils xrayUtils;
+    private PersistentMappingCache persistentMappingCache;
+    private TestRunSpool testRunSpool;
+    private ShardCoordinator shardCoordinator;
+    /**
+     * Contains an empty Optional for classes whose Test Set could not be found or created.
+     * Parallel methods of the same class share one lookup.
+     */
+    private final InFlightCache<String, Optional<XrayTestSetIssue>> testSetCacheByClassName = new InFlightCache<>();
+    private final ConcurrentHashMap<String, XrayTestIssue> testCacheByMethodName = new ConcurrentHashMap<>();
+    /**
+     * Lock per method name, so that parallel invocations of the same method await a single Test lookup
+     */
+    private final ConcurrentHashMap<String, Object> testLookupLocks = new ConcurrentHashMap<>();
     private final ConcurrentLinkedQueue<XrayTestExecutionImport.TestRun> testRunSyncQueue = new ConcurrentLinkedQueue<>();
-    private final ConcurrentLinkedQueue<XrayTestSetIssue> testSetSyncQueue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<TestSetMembership> testSetSyncQueue = new ConcurrentLinkedQueue<>();
+    /**
+     * Membership by Test Set instance, the issues are compared by identity
+     */
+    private final ConcurrentHashMap<XrayTestSetIssue, TestSetMembership> testSetMemberships = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingTestLookup> pendingTestLookups = new ConcurrentLinkedQueue<>();
+    /**
+     * Largest number of test runs synchronized by one flush
+     */
+    private final AtomicInteger maxTestRunSyncQueueSize = new AtomicInteger();
+    /**
+     * Guards {@link #syncExecutor} separately, because the monitor of this instance is held during a whole flush
+     */
+    private final Object syncExecutorLock = new Object();
+    private ThreadPoolExecutor syncExecutor;
+    private final Object xrayUtilsLock = new Object();
 
-    private HashMap<String, LogLevel> loggablePromts = new HashMap<>();
+    /**
+     * Written by test threads and the sync executor
+     */
+    private final ConcurrentHashMap<String, LogLevel> loggablePromts = new ConcurrentHashMap<>();
 
     private XrayConfig getXrayConfig() {
         return XrayConfig.getInstance();
@@ -97,8 +151,26 @@ public abstract class AbstractXrayResultsSynchronizer implements
 
     private XrayUtils getXrayUtils() {
         if (this.xrayUtils == null) {
-            XrayConnector connector = new XrayConnector();
-            this.xrayUtils = new XrayUtils(connector.getWebResource());
+            synchronized (xrayUtilsLock) {
+                if (this.xrayUtils == null) {
+                    final XrayConnector xrayConnector = new XrayConnector();
+                    final XrayUtils xrayUtils = new XrayUtils(xrayConnector.getWebResource());
+                    xrayUtils.setSearchPageSize(getXrayConfig().getSearchPageSize());
+                    xrayUtils.setSearchPrefetchEnabled(getXrayConfig().isSearchPrefetchEnabled());
+                    xrayUtils.setImportMaxBytes(getXrayConfig().getSyncImportMaxBytes());
+                    if (getXrayConfig().isMappingCacheEnabled()) {
+                        xrayUtils.getTransitionPlanner().load(getXrayConfig().getTransitionCacheFile());
+                    }
+                    xrayConnector.getMetrics().ifPresent(metrics -> {
+                        metrics.registerGauge(METRIC_TEST_RUN_SYNC_QUEUE, testRunSyncQueue::size);
+                        metrics.registerGauge(METRIC_TEST_RUN_SYNC_QUEUE_MAX, maxTestRunSyncQueueSize::get);
+                        metrics.registerGauge(METRIC_TEST_SET_SYNC_QUEUE, testSetSyncQueue::size);
+                        metrics.registerGauge(METRIC_PENDING_TEST_LOOKUPS, pendingTestLookups::size);
+                    });
+                    this.xrayConnector = xrayConnector;
+                    this.xrayUtils = xrayUtils;
+                }
+            }
         }
         return this.xrayUtils;
     }
@@ -108,11 +180,62 @@ public abstract class AbstractXrayResultsSynchronizer implements
         EventBus eventBus = TesterraListener.getEventBus();
         eventBus.register(this);
 
+        final XrayConfig xrayConfig = getXrayConfig();
+        if (xrayConfig.isMappingCacheEnabled()) {
+            persistentMappingCache = new PersistentMappingCache(xrayConfig.getMappingCacheFile(), TimeUnit.HOURS.toMillis(xrayConfig.getMappingCacheTimeToLiveHours()));
+            persistentMappingCache.load();
+        }
+
         isSyncEnabled = true;
+
+        if (xrayConfig.getSyncShardDirectory() != null) {
+            shardCoordinator = new ShardCoordinator(xrayConfig.getSyncShardDirectory(), xrayConfig.getSyncShardId(), xrayConfig.getSyncShardCount());
+            log().info(String.format("Synchronize as shard %s of %d via %s", shardCoordinator.getShardId(), xrayConfig.getSyncShardCount(), xrayConfig.getSyncShardDirectory()));
+        }
+
+        if (xrayConfig.isSyncSpoolEnabled()) {
+            testRunSpool = new TestRunSpool(xrayConfig.getSyncSpoolFile());
+            try {
+                testRunSpool.open();
+                replaySpool();
+            } catch (IOException e) {
+                log().error(String.format("Unable to open test run spool %s", xrayConfig.getSyncSpoolFile()), e);
+                testRunSpool = null;
+            }
+        }
+    }
+
+    /**
+     * Imports the pending test runs of previous executions into their Test Execution.
+     * Test runs of executions that ended before their first import are imported into the current Test Execution.
+     */
+    private void replaySpool() {
+        for (TestRunSpool.PendingExecution pendingExecution : testRunSpool.getPendingExecutions()) {
+            final Map<String, XrayTestExecutionImport.TestRun> testRuns = pendingExecution.getTestRuns();
+            if (pendingExecution.getTestExecutionKey() == null) {
+                testRuns.forEach((id, testRun) -> {
+                    testRunSpool.adopt(id, testRun);
+                    testRunSyncQueue.add(testRun);
+                });
+                continue;
+            }
+
+            final XrayTestExecutionImport xrayTestExecutionImport = new XrayTestExecutionImport(pendingExecution.getTestExecutionKey());
+            xrayTestExecutionImport.addTests(new HashSet<>(testRuns.values()));
+            // The test runs of imported chunks are marked as done, so that a failing later chunk does not replay them again
+            testRuns.forEach(testRunSpool::adopt);
+            try {
+                getXrayUtils().importTestExecution(xrayTestExecutionImport, testRunSpool::markDone);
+                log().info(String.format("Replayed %d spooled test runs into %s %s", testRuns.size(), IssueType.TestExecution, pendingExecution.getTestExecutionKey()));
+            } catch (IOException e) {
+                log().warn(String.format("Unable to replay %d spooled test runs into %s %s: %s", testRuns.size(), IssueType.TestExecution, pendingExecution.getTestExecutionKey(), e.getMessage()));
+            }
+        }
     }
 
     @Override
     public void shutdown() {
+        awaitSyncExecutor();
         unregisterSync();
     }
 
@@ -161,50 +284,115 @@ public abstract class AbstractXrayResultsSynchronizer implements
             final String cacheKey = testResult.getMethod().getQualifiedName();
 
             if (!testCacheByMethodName.containsKey(cacheKey)) {
-                final JqlQuery testQuery = xrayMapper.queryTest(methodContext);
-                if (testQuery != null) {
-                    // Find existing Test issue
-                    final Optional<XrayTestIssue> optionalExistingTestIssue = xrayUtils.searchIssues(testQuery, XrayTestIssue::new).findFirst();
-                    if (optionalExistingTestIssue.isPresent()) {
-                        testCacheByMethodName.put(cacheKey, optionalExistingTestIssue.get());
-                    } else if (xrayMapper.shouldCreateNewTest(methodContext)) {
-                        // Create new Test issue
-                        XrayTestIssue testIssue = new XrayTestIssue();
-                        String newKey = String.format("%s.%s", XrayUtils.PREFIX_NEW_ISSUE, xrayMapper.getDefaultTestIssueSummery(methodContext));
-                        testIssue.setKey(newKey);
-                        testIssue.getProject().setKey(xrayConfig.getProjectKey());
-                        testIssue.setSummary(getXrayMapper().getDefaultTestIssueSummery(methodContext));
-                        testIssue.setDescription(String.format("%s generated %s by method %s", VENDOR_PREFIX, IssueType.Test, testResult.getMethod().getQualifiedName()));
-                        testCacheByMethodName.put(cacheKey, testIssue);
-                    } else {
-                        // Mapping by test summery, but without creating new tests
-                        this.addLoggablePromt("Creating new Xray tests is disabled!", LogLevel.WARN);
-                        this.addLoggablePromt(String.format("Could not find %s as Xray test.", cacheKey), LogLevel.ERROR);
+                // Parallel invocations of the same method wait for the first lookup instead of querying on their own
+                synchronized (testLookupLocks.computeIfAbsent(cacheKey, key -> new Object())) {
+                    if (!testCacheByMethodName.containsKey(cacheKey)) {
+                        getPersistentlyCachedTestIssue(cacheKey, methodContext).ifPresent(testIssue -> testCacheByMethodName.put(cacheKey, testIssue));
+                    }
+
+                    if (!testCacheByMethodName.containsKey(cacheKey)) {
+                        final JqlQuery testQuery = xrayMapper.queryTest(methodContext);
+                        if (testQuery != null) {
+                            if (xrayConfig.isSearchBatchEnabled()) {
+                                // Defer the lookup to the next flush, where all pending lookups are resolved together
+                                pendingTestLookups.add(new PendingTestLookup(cacheKey, testQuery, methodContext, optionalXrayTestSetIssue, currentTestIssues));
+                                requestFlushSyncQueueIfNeeded();
+                                return;
+                            }
+                            // Find existing Test issue
+                            final TestResolutionEvent resolutionEvent = new TestResolutionEvent();
+                            resolutionEvent.begin();
+                            try {
+                                final Optional<XrayTestIssue> optionalExistingTestIssue = xrayUtils.searchFirstIssue(testQuery, getTestFieldNames(), XrayTestIssue::new);
+                                if (resolutionEvent.shouldCommit()) {
+                                    resolutionEvent.methodName = cacheKey;
+                                    resolutionEvent.queryCount = 1;
+                                    resolutionEvent.foundCount = optionalExistingTestIssue.isPresent() ? 1 : 0;
+                                    resolutionEvent.testKeys = optionalExistingTestIssue.map(XrayTestIssue::getKey).orElse(null);
+                                    resolutionEvent.commit();
+                                }
+                                cacheTestIssue(cacheKey, methodContext, optionalExistingTestIssue);
+                            } catch (UncheckedIOException e) {
+                                // Nothing is cached, because a failed search doesn't mean that the Test doesn't exist
+                                final String message = String.format("Unable to search %s of %s: %s", IssueType.Test, cacheKey, e.getCause().getMessage());
+                                this.addLoggablePromt(message, LogLevel.ERROR);
+                            }
+                        }
                     }
                 }
             }
 
             // Add the found or new Test issue to the list of current issues
-            if (testCacheByMethodName.containsKey(cacheKey)) {
-                currentTestIssues.add(testCacheByMethodName.get(cacheKey));
+            final XrayTestIssue cachedTestIssue = testCacheByMethodName.get(cacheKey);
+            if (cachedTestIssue != null) {
+                currentTestIssues.add(cachedTestIssue);
+            }
+        }
+
+        addTestRunsToSyncQueue(methodContext, optionalXrayTestSetIssue, currentTestIssues);
+        requestFlushSyncQueueIfNeeded();
+    }
+
+    /**
+     * Caches the found Test issue or a new one, if the mapper allows to create Tests.
+     */
+    private void cacheTestIssue(String cacheKey, MethodContext methodContext, Optional<XrayTestIssue> optionalExistingTestIssue) {
+        final XrayMapper xrayMapper = getXrayMapper();
+        if (optionalExistingTestIssue.isPresent()) {
+            testCacheByMethodName.put(cacheKey, optionalExistingTestIssue.get());
+            if (persistentMappingCache != null) {
+                persistentMappingCache.put(PersistentMappingCache.Type.TEST, getXrayConfig().getProjectKey(), cacheKey, optionalExistingTestIssue.get());
             }
+        } else if (xrayMapper.shouldCreateNewTest(methodContext)) {
+            // Create new Test issue
+            XrayTestIssue testIssue = new XrayTestIssue();
+            testIssue.setKey(createNewTestKey(xrayMapper.getDefaultTestIssueSummery(methodContext)));
+            testIssue.getProject().setKey(getXrayConfig().getProjectKey());
+            testIssue.setSummary(xrayMapper.getDefaultTestIssueSummery(methodContext));
+            testIssue.setDescription(String.format("%s generated %s by method %s", VENDOR_PREFIX, IssueType.Test, cacheKey));
+            testCacheByMethodName.put(cacheKey, testIssue);
+        } else {
+            // Mapping by test summery, but without creating new tests
+            this.addLoggablePromt("Creating new Xray tests is disabled!", LogLevel.WARN);
+            this.addLoggablePromt(String.format("Could not find %s as Xray test.", cacheKey), LogLevel.ERROR);
+        }
+    }
+
+    /**
+     * Returns the Test issue from the {@link PersistentMappingCache}.
+     * Because the cache only contains the key, it is not used if the mapper creates or updates Tests.
+     */
+    private Optional<XrayTestIssue> getPersistentlyCachedTestIssue(String cacheKey, MethodContext methodContext) {
+        if (persistentMappingCache == null || getXrayMapper().shouldCreateNewTest(methodContext)) {
+            return Optional.empty();
         }
+        persistentMappingCache.validate(getXrayUtils());
+        return persistentMappingCache.getIssueKey(PersistentMappingCache.Type.TEST, getXrayConfig().getProjectKey(), cacheKey)
+                .map(XrayTestIssue::new);
+    }
+
+    /**
+     * Adds the Tests to the Test Set and their results to the sync queue
+     */
+    private void addTestRunsToSyncQueue(MethodContext methodContext, Optional<XrayTestSetIssue> optionalXrayTestSetIssue, Set<XrayTestIssue> currentTestIssues) {
+        final XrayMapper xrayMapper = getXrayMapper();
 
         optionalXrayTestSetIssue.ifPresent(xrayTestSetIssue -> {
-            final List<String> testSetTestKeys = xrayTestSetIssue.getTestKeys();
-            final List<String> newTestKeys = currentTestIssues.stream()
-                    .map(JiraKeyReference::getKey)
-                    .filter(Objects::nonNull)
-                    .filter(testKey -> !testSetTestKeys.contains(testKey))
-                    .collect(Collectors.toList());
-
-            // Add new tests to testset
-            if (newTestKeys.size() > 0) {
-                xrayMapper.updateTestSet(xrayTestSetIssue, methodContext.getClassContext());
-                finalizeTestSet(xrayTestSetIssue, methodContext.getClassContext());
-                testSetTestKeys.addAll(newTestKeys);
-                if (!testSetSyncQueue.contains(xrayTestSetIssue)) {
-                    testSetSyncQueue.add(xrayTestSetIssue);
+            final TestSetMembership testSetMembership = testSetMemberships.computeIfAbsent(xrayTestSetIssue, TestSetMembership::new);
+            // Methods of the same class share the Test Set, so checking and adding its Tests must not interleave
+            synchronized (testSetMembership) {
+                final List<String> newTestKeys = currentTestIssues.stream()
+                        .map(JiraKeyReference::getKey)
+                        .filter(Objects::nonNull)
+                        .filter(testKey -> !testSetMembership.contains(testKey))
+                        .collect(Collectors.toList());
+
+                // Add new tests to testset
+                if (newTestKeys.size() > 0) {
+                    xrayMapper.updateTestSet(xrayTestSetIssue, methodContext.getClassContext());
+                    finalizeTestSet(xrayTestSetIssue, methodContext.getClassContext());
+                    testSetMembership.addTestKeys(newTestKeys);
+                    testSetMembership.addToQueue(testSetSyncQueue);
                 }
             }
         });
@@ -218,26 +406,167 @@ public abstract class AbstractXrayResultsSynchronizer implements
                 .peek(issue -> xrayMapper.updateTest(issue, methodContext))
                 .map(issue -> this.updateTestInfoForImport(issue, methodContext))
                 .peek(testRun -> updateTestRunForImport(testRun, methodContext))
-                .forEach(testRunSyncQueue::add);
+                .forEach(this::queueTestRun);
+    }
 
-        if (testRunSyncQueue.size() >= xrayConfig.getSyncFrequencyTests()) {
-            flushSyncQueue();
+    private void queueTestRun(XrayTestExecutionImport.TestRun testRun) {
+        if (testRunSpool != null) {
+            testRunSpool.append(testRun);
         }
+        testRunSyncQueue.add(testRun);
+    }
+
+    private void requestFlushSyncQueueIfNeeded() {
+        if (testRunSyncQueue.size() + pendingTestLookups.size() >= getXrayConfig().getSyncFrequencyTests()) {
+            requestFlushSyncQueue();
+        }
+    }
+
+    /**
+     * Resolves all deferred Test lookups by {@link BatchTestResolver} and adds their results to the sync queue.
+     */
+    private void resolvePendingTestLookups() {
+        final List<PendingTestLookup> lookups = new ArrayList<>();
+        PendingTestLookup lookup;
+        while ((lookup = pendingTestLookups.poll()) != null) {
+            lookups.add(lookup);
+        }
+        if (lookups.isEmpty()) {
+            return;
+        }
+
+        final Map<String, JqlQuery> queries = new LinkedHashMap<>();
+        lookups.stream()
+                .filter(pendingTestLookup -> !testCacheByMethodName.containsKey(pendingTestLookup.cacheKey))
+                .forEach(pendingTestLookup -> queries.putIfAbsent(pendingTestLookup.cacheKey, pendingTestLookup.testQuery));
+
+        final XrayConfig xrayConfig = getXrayConfig();
+        final BatchTestResolver batchTestResolver = new BatchTestResolver(
+                getXrayUtils(),
+                getTestFieldNames(),
+                xrayConfig.getSearchJqlMaxLength()
+        );
+        final TestResolutionEvent event = new TestResolutionEvent();
+        event.begin();
+        Map<String, XrayTestIssue> foundTestIssues;
+        try {
+            foundTestIssues = batchTestResolver.resolve(queries);
+            if (event.shouldCommit()) {
+                event.queryCount = queries.size();
+                event.foundCount = foundTestIssues.size();
+                event.testKeys = foundTestIssues.values().stream().map(XrayTestIssue::getKey).collect(Collectors.joining(","));
+                event.commit();
+            }
+        } catch (UncheckedIOException e) {
+            // Unresolved lookups are not cached, so that no duplicates of existing Tests are created
+            final String message = String.format("Unable to search %d %s: %s", queries.size(), IssueType.Test, e.getCause().getMessage());
+            this.addLoggablePromt(message, LogLevel.ERROR);
+            foundTestIssues = null;
+        }
+
+        final Map<String, XrayTestIssue> resolvedTestIssues = foundTestIssues;
+        lookups.forEach(pendingTestLookup -> {
+            final String cacheKey = pendingTestLookup.cacheKey;
+            if (resolvedTestIssues != null && !testCacheByMethodName.containsKey(cacheKey)) {
+                cacheTestIssue(cacheKey, pendingTestLookup.methodContext, Optional.ofNullable(resolvedTestIssues.get(cacheKey)));
+            }
+            final Set<XrayTestIssue> currentTestIssues = pendingTestLookup.currentTestIssues;
+            final XrayTestIssue cachedTestIssue = testCacheByMethodName.get(cacheKey);
+            if (cachedTestIssue != null) {
+                currentTestIssues.add(cachedTestIssue);
+            }
+            addTestRunsToSyncQueue(pendingTestLookup.methodContext, pendingTestLookup.optionalXrayTestSetIssue, currentTestIssues);
+        });
     }
 
     @Override
     @Subscribe
     public void onExecutionFinish(ExecutionFinishEvent event) {
+        awaitSyncExecutor();
         flushSyncQueue();
+        if (shardCoordinator != null) {
+            finishShard();
+        }
         updateTestExecution();
+        if (persistentMappingCache != null) {
+            persistentMappingCache.save();
+            if (xrayUtils != null) {
+                xrayUtils.getTransitionPlanner().save(getXrayConfig().getTransitionCacheFile());
+            }
+        }
+        if (testRunSpool != null) {
+            testRunSpool.close();
+        }
+        printRateLimitStatistics();
+        getMetrics().ifPresent(metrics -> log().info(metrics.createSummary()));
         printPromptLogs();
     }
 
+    /**
+     * Flushes the sync queues inline or, when {@link XrayConfig#isSyncAsyncEnabled()} is set, hands off to the sync executor.
+     * The executor accepts at most one pending flush besides the running one. Further requests are dropped,
+     * because the pending flush drains everything that was queued until it starts.
+     */
+    private void requestFlushSyncQueue() {
+        if (getXrayConfig().isSyncAsyncEnabled()) {
+            getSyncExecutor().execute(this::flushSyncQueue);
+        } else {
+            flushSyncQueue();
+        }
+    }
+
+    private ThreadPoolExecutor getSyncExecutor() {
+        synchronized (syncExecutorLock) {
+            if (this.syncExecutor == null || this.syncExecutor.isShutdown()) {
+                this.syncExecutor = new ThreadPoolExecutor(
+                        1,
+                        1,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(1),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "Xray-Sync");
+                            thread.setDaemon(true);
+                            return thread;
+                        },
+                        new ThreadPoolExecutor.DiscardPolicy()
+                );
+            }
+            return this.syncExecutor;
+        }
+    }
+
+    /**
+     * Waits until all flushes handed off to the sync executor are finished.
+     */
+    private void awaitSyncExecutor() {
+        final ThreadPoolExecutor executor;
+        synchronized (syncExecutorLock) {
+            executor = this.syncExecutor;
+            this.syncExecutor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            final int timeout = getXrayConfig().getSyncAsyncShutdownTimeoutSeconds();
+            if (!executor.awaitTermination(timeout, TimeUnit.SECONDS)) {
+                log().warn(String.format("Xray sync executor did not finish within %d seconds", timeout));
+            }
+        } catch (InterruptedException e) {
+            log().error("Interrupted while waiting for Xray sync executor", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private synchronized void flushSyncQueue() {
         if (!isSyncEnabled) {
             return;
         }
 
+        resolvePendingTestLookups();
+
         final int numTestSetsToSync = testSetSyncQueue.size();
         final int numTestsToSync = testRunSyncQueue.size();
 
@@ -246,9 +575,33 @@ public abstract class AbstractXrayResultsSynchronizer implements
         }
 
         log().info("Synchronizing...");
+        maxTestRunSyncQueueSize.accumulateAndGet(numTestsToSync, Math::max);
 
+        final FlushEvent event = new FlushEvent();
+        event.begin();
+        event.testRunCount = numTestsToSync;
+        event.testSetCount = numTestSetsToSync;
+        final long startMillis = System.currentTimeMillis();
+        try {
+            synchronizeQueues(numTestsToSync);
+        } finally {
+            recordDuration(METRIC_FLUSH_DURATION, startMillis);
+            event.commit();
+        }
+    }
+
+    /**
+     * Imports the queued test runs and synchronizes the queued Test Sets, called by {@link #flushSyncQueue()} holding the monitor
+     */
+    private void synchronizeQueues(int numTestsToSync) {
         final XrayUtils xrayUtils = getXrayUtils();
 
+        if (shardCoordinator != null) {
+            writeTestRunsToShardDirectory();
+            syncTestSets(xrayUtils);
+            return;
+        }
+
         // Prepare Xray Test execution for import
         XrayTestExecutionIssue newExecutionIssue = getTestExecutionIssue();
         if (newExecutionIssue == null) {
@@ -269,8 +622,14 @@ public abstract class AbstractXrayResultsSynchronizer implements
 
         try {
             xrayTestExecutionImport.getInfo().setFinishDate(new Date());
-            xrayUtils.importTestExecution(xrayTestExecutionImport);
-            this.testExecutionIssue.setKey(xrayTestExecutionImport.getTestExecutionKey());
+            final long importStartMillis = System.currentTimeMillis();
+            xrayUtils.importTestExecution(xrayTestExecutionImport, importedTestRuns -> {
+                if (testRunSpool != null) {
+                    testRunSpool.setTestExecutionKey(xrayTestExecutionImport.getTestExecutionKey());
+                    testRunSpool.markDone(importedTestRuns);
+                }
+            });
+            recordDuration(METRIC_IMPORT_DURATION, importStartMillis);
             Optional<URI> issueUrl = getXrayConfig().getIssueUrl(xrayTestExecutionImport.getTestExecutionKey());
             log().info(String.format("Synchronized %s (%s) with %d %s",
                     IssueType.TestExecution,
@@ -282,14 +641,19 @@ public abstract class AbstractXrayResultsSynchronizer implements
             final String message = String.format("Unable to synchronize %s: %s", IssueType.TestExecution, e.getMessage());
 //            log().error("Unable to synchronize {}: {}", IssueType.TestExecution, e.getMessage(), Loggable.prompt);
             this.addLoggablePromt(message, LogLevel.ERROR);
+        } finally {
+            // A failed chunk must not lose the Test Execution created by the previous chunks
+            if (xrayTestExecutionImport.getTestExecutionKey() != null) {
+                this.testExecutionIssue.setKey(xrayTestExecutionImport.getTestExecutionKey());
+            }
         }
 
         // xrayTestExecutionImport now contains all keys of created and updated test issues
         //
         // Only run key update on testSetSyncQueue if new tests have to create:
         // New test issues have special key: XrayUtils.PREFIX_NEW_ISSUE + method name
-        boolean areNewTestsToImport = testSetSyncQueue.stream().anyMatch(xrayTestSetIssue -> {
-            return xrayTestSetIssue.getTestKeys().stream().anyMatch(key -> key.contains(XrayUtils.PREFIX_NEW_ISSUE));
+        boolean areNewTestsToImport = testSetSyncQueue.stream().anyMatch(testSetMembership -> {
+            return testSetMembership.getAddedTestKeys().stream().anyMatch(key -> key.contains(XrayUtils.PREFIX_NEW_ISSUE));
         });
         if (areNewTestsToImport && xrayTestExecutionImport.getResultTestIssueImport() != null) {
             // POST request returns no exception but error messages
@@ -303,44 +667,163 @@ public abstract class AbstractXrayResultsSynchronizer implements
                         );
                 return;
             } else if (xrayTestExecutionImport.getResultTestIssueImport().getSuccess().size() > 0) {
-                xrayTestExecutionImport.getResultTestIssueImport().getSuccess().forEach(jiraIssueReference -> {
-                    try {
-                        // Replace the temporary key with real Jira key from the result 'xrayTestExecutionImport'
-                        JiraIssue issue = xrayUtils.getIssue(jiraIssueReference.getKey());
-                        testSetSyncQueue.forEach(xrayTestSetIssue -> {
-                            for (ListIterator<String> iterator = xrayTestSetIssue.getTestKeys().listIterator(); iterator.hasNext(); ) {
-                                String next = iterator.next();
-                                if (next.contains(issue.getSummary())) {
-                                    iterator.set(issue.getKey());
-                                }
-                            }
-                        });
-                    } catch (IOException e) {
-                        log().error("Unable to read {}:", IssueType.TestExecution, e);
-                    }
-                });
+                // Replace the temporary keys with the real Jira keys from the result 'xrayTestExecutionImport'
+                try {
+                    final Map<String, String> realKeysByNewKey = getRealKeysByNewTestKey(xrayUtils, xrayTestExecutionImport.getResultTestIssueImport().getSuccess());
+                    testSetSyncQueue.forEach(testSetMembership -> testSetMembership.replaceTestKeys(realKeysByNewKey));
+                } catch (UncheckedIOException e) {
+                    // Temporary keys would be rejected by Xray
+                    final String message = String.format("Unable to find the keys of new %s, which are not added to their %s: %s", IssueType.Test, IssueType.TestSet, e.getCause().getMessage());
+                    this.addLoggablePromt(message, LogLevel.ERROR);
+                    testSetSyncQueue.forEach(testSetMembership -> testSetMembership.removeTestKeysIf(key -> key.contains(XrayUtils.PREFIX_NEW_ISSUE)));
+                }
             }
         }
 
         // After fixing temporary key of test issues, the test set can create or update
-        testSetSyncQueue.forEach(xrayTestSetIssue -> {
+        syncTestSets(xrayUtils);
+    }
+
+    /**
+     * Requests the summaries of the imported Tests by bulk searches
+     * and maps the temporary keys of new Tests to their real Jira keys.
+     */
+    private Map<String, String> getRealKeysByNewTestKey(XrayUtils xrayUtils, List<JiraKeyReference> importedTests) {
+        final List<String> importedTestKeys = importedTests.stream()
+                .map(JiraKeyReference::getKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        final NewTestKeyResolutionEvent event = new NewTestKeyResolutionEvent();
+        event.begin();
+        final Map<String, String> realKeysByNewKey = new HashMap<>();
+        xrayUtils.searchIssuesByKeys(importedTestKeys, Collections.singletonList(Fields.SUMMARY.getFieldName()))
+                .filter(issue -> issue.getSummary() != null)
+                .forEach(issue -> realKeysByNewKey.put(createNewTestKey(issue.getSummary()), issue.getKey()));
+        event.importedTestCount = importedTestKeys.size();
+        event.resolvedKeyCount = realKeysByNewKey.size();
+        event.commit();
+        return realKeysByNewKey;
+    }
+
+    /**
+     * Temporary key of a new Test, until Xray has created it by the import
+     */
+    private String createNewTestKey(String summary) {
+        return String.format("%s.%s", XrayUtils.PREFIX_NEW_ISSUE, summary);
+    }
+
+    /**
+     * Creates new Test Sets with all their Tests.
+     * Existing Test Sets get their fields updated once and only the Tests added since their last synchronization.
+     */
+    private void syncTestSets(XrayUtils xrayUtils) {
+        testSetSyncQueue.forEach(testSetMembership -> {
+            final XrayTestSetIssue xrayTestSetIssue = testSetMembership.getTestSetIssue();
+            if (shardCoordinator != null) {
+                // New Tests are created by the aggregator, their keys are unknown to the shard
+                if (testSetMembership.removeTestKeysIf(key -> key.contains(XrayUtils.PREFIX_NEW_ISSUE))) {
+                    log().warn(String.format("New %s are not added to %s %s in shard mode", IssueType.Test, IssueType.TestSet, xrayTestSetIssue.getKey()));
+                }
+            }
+            final List<String> addedTestKeys = testSetMembership.getAddedTestKeys();
+            final TestSetUpdateEvent event = new TestSetUpdateEvent();
+            event.begin();
+            event.addedTestCount = addedTestKeys.size();
+            event.testCount = testSetMembership.size();
             try {
-                xrayUtils.createOrUpdateIssue(xrayTestSetIssue);
+                if (!xrayTestSetIssue.hasKey()) {
+                    event.created = true;
+                    xrayUtils.createOrUpdateIssue(xrayTestSetIssue);
+                } else {
+                    if (!testSetMembership.isFieldsSynchronized()) {
+                        event.fieldsUpdated = true;
+                        xrayUtils.createOrUpdateIssue(createTestSetFieldsUpdate(testSetMembership));
+                    }
+                    if (!addedTestKeys.isEmpty()) {
+                        xrayUtils.addTestsToTestSet(xrayTestSetIssue.getKey(), addedTestKeys);
+                    }
+                }
+                testSetMembership.markSynchronized(addedTestKeys);
                 final Optional<URI> issueUrl = getXrayConfig().getIssueUrl(xrayTestSetIssue.getKey());
-                log().info(String.format("Synchronized %s (%s) with %d %s",
+                log().info(String.format("Synchronized %s (%s) with %d %s (%d added)",
                         IssueType.TestSet,
                         issueUrl.orElse(null),
-                        xrayTestSetIssue.getTestKeys().size(),
-                        IssueType.Test
+                        testSetMembership.size(),
+                        IssueType.Test,
+                        addedTestKeys.size()
                 ));
             } catch (IOException e) {
                 // A typical cause of an exception could be an existing Jira key which does not belong to a Test set
 //                log().error("Unable to update {}", IssueType.TestSet, e);
                 final String message = String.format("Unable to update %s by key %s: %s", IssueType.TestSet, xrayTestSetIssue.getKey(), e.getMessage());
                 this.addLoggablePromt(message, LogLevel.ERROR);
+            } finally {
+                event.testSetKey = xrayTestSetIssue.getKey();
+                event.commit();
             }
-            testSetSyncQueue.remove(xrayTestSetIssue);
+            // Tests added during the synchronization keep the Test Set queued for the next flush
+            testSetMembership.removeFromQueueIfSynchronized(testSetSyncQueue);
+        });
+    }
+
+    /**
+     * Returns a copy of the Test Set without its Tests, which are added separately
+     */
+    private JiraIssue createTestSetFieldsUpdate(TestSetMembership testSetMembership) {
+        synchronized (testSetMembership) {
+            final XrayTestSetIssue xrayTestSetIssue = testSetMembership.getTestSetIssue();
+            final JiraIssue fieldsUpdate = new JiraIssue(xrayTestSetIssue.getKey());
+            fieldsUpdate.getFields().putAll(xrayTestSetIssue.getFields());
+            fieldsUpdate.getFields().remove(Fields.TEST_SET_TESTS.getFieldName());
+            return fieldsUpdate;
+        }
+    }
+
+    /**
+     * Writes the queued test runs into the shared directory instead of importing them
+     */
+    private void writeTestRunsToShardDirectory() {
+        final XrayTestExecutionImport xrayTestExecutionImport = new XrayTestExecutionImport((String) null);
+        testRunSyncQueue.forEach(test -> {
+            xrayTestExecutionImport.addTest(test);
+            testRunSyncQueue.remove(test);
         });
+        if (xrayTestExecutionImport.getTests().isEmpty()) {
+            return;
+        }
+        try {
+            shardCoordinator.writeTestRuns(xrayTestExecutionImport);
+            if (testRunSpool != null) {
+                testRunSpool.markDone(xrayTestExecutionImport.getTests());
+            }
+        } catch (IOException e) {
+            final String message = String.format("Unable to write %d test runs to shard directory: %s", xrayTestExecutionImport.getTests().size(), e.getMessage());
+            this.addLoggablePromt(message, LogLevel.ERROR);
+        }
+    }
+
+    /**
+     * Finishes this shard and, if elected as aggregator, imports the test runs of all shards into a single Test Execution
+     */
+    private void finishShard() {
+        try {
+            if (!shardCoordinator.finishShard()) {
+                return;
+            }
+            final XrayTestExecutionIssue executionIssue = getTestExecutionIssue();
+            if (executionIssue == null) {
+                return;
+            }
+            final int testRunCount = shardCoordinator.importTestRuns(getXrayUtils(), executionIssue, new Date());
+            log().info(String.format("Synchronized %s (%s) with %d test runs of all shards",
+                    IssueType.TestExecution,
+                    getXrayConfig().getIssueUrl(executionIssue.getKey()).orElse(null),
+                    testRunCount
+            ));
+        } catch (IOException e) {
+            final String message = String.format("Unable to aggregate shards into %s: %s", IssueType.TestExecution, e.getMessage());
+            this.addLoggablePromt(message, LogLevel.ERROR);
+        }
     }
 
     private synchronized void unregisterSync() {
@@ -388,8 +871,13 @@ public abstract class AbstractXrayResultsSynchronizer implements
                 final ExecutionContext executionContext = ExecutionContextController.getCurrentExecutionContext();
                 xrayMapper.updateTestExecution(testExecutionIssue, executionContext);
 
+                final TestExecutionLookupEvent event = new TestExecutionLookupEvent();
+                event.begin();
                 final Optional<XrayTestExecutionIssue> optionalExistingTestExecution = Optional.ofNullable(xrayMapper.queryTestExecution(testExecutionIssue))
-                        .flatMap(jqlQuery -> xrayUtils.searchIssues(jqlQuery, XrayTestExecutionIssue::new).findFirst());
+                        .flatMap(jqlQuery -> xrayUtils.searchFirstIssue(jqlQuery, Collections.emptyList(), XrayTestExecutionIssue::new));
+                event.found = optionalExistingTestExecution.isPresent();
+                event.testExecutionKey = optionalExistingTestExecution.map(XrayTestExecutionIssue::getKey).orElse(null);
+                event.commit();
 
                 if (optionalExistingTestExecution.isPresent()) {
                     testExecutionIssue = optionalExistingTestExecution.get();
@@ -570,13 +1058,23 @@ public abstract class AbstractXrayResultsSynchronizer implements
             return Optional.empty();
         }
 
-        final String cacheKey = clazz.getCanonicalName();
-
-        // The Test Set has been cached by name, even if its null
-        if (this.testSetCacheByClassName.containsKey(cacheKey)) {
-            return Optional.ofNullable(this.testSetCacheByClassName.get(cacheKey));
+        // The Test Set is cached by name, even if it is empty
+        try {
+            return this.testSetCacheByClassName.get(clazz.getCanonicalName(), () -> queryTestSetIssueForClassContext(classContext));
+        } catch (UncheckedIOException e) {
+            // Not cached, so the next method of the class searches again
+            final String message = String.format("Unable to search %s of %s: %s", IssueType.TestSet, clazz.getSimpleName(), e.getCause().getMessage());
+            this.addLoggablePromt(message, LogLevel.ERROR);
+            return Optional.empty();
         }
+    }
 
+    private Optional<XrayTestSetIssue> queryTestSetIssueForClassContext(final ClassContext classContext) {
+        final Class<?> clazz = classContext.getTestClass();
+        final String cacheKey = clazz.getCanonicalName();
+        final TestSetResolutionEvent event = new TestSetResolutionEvent();
+        event.begin();
+        event.className = cacheKey;
         XrayTestSetIssue xrayTestSetIssue = null;
         final XrayMapper xrayMapper = getXrayMapper();
         final XrayUtils xrayUtils = getXrayUtils();
@@ -586,7 +1084,7 @@ public abstract class AbstractXrayResultsSynchronizer implements
         final String testSetKey = clazz.getAnnotation(XrayTestSet.class).key();
         if (StringUtils.isNotBlank(testSetKey)) {
             try {
-                final XrayTestSetIssue existingTestSetIssue = xrayUtils.getIssue(testSetKey, XrayTestSetIssue::new);
+                final XrayTestSetIssue existingTestSetIssue = xrayUtils.getIssue(testSetKey, getFieldNames(xrayMapper.getTestSetFields()), XrayTestSetIssue::new);
                 xrayTestSetIssue = new XrayTestSetIssue(existingTestSetIssue);
             } catch (IOException e) {
                 final String message = String.format("Cannot find %s %s by key %s", IssueType.TestSet, clazz.getSimpleName(), testSetKey);
@@ -596,7 +1094,13 @@ public abstract class AbstractXrayResultsSynchronizer implements
         } else {
             final JqlQuery testSetQuery = xrayMapper.queryTestSet(classContext);
             if (testSetQuery != null) {
-                final Optional<XrayTestSetIssue> optionalExistingTestSetIssue = xrayUtils.searchIssues(testSetQuery, XrayTestSetIssue::new).findFirst();
+                Optional<XrayTestSetIssue> optionalExistingTestSetIssue = getPersistentlyCachedTestSetIssue(cacheKey);
+                if (!optionalExistingTestSetIssue.isPresent()) {
+                    optionalExistingTestSetIssue = xrayUtils.searchFirstIssue(testSetQuery, getFieldNames(xrayMapper.getTestSetFields()), XrayTestSetIssue::new);
+                    if (persistentMappingCache != null) {
+                        optionalExistingTestSetIssue.ifPresent(issue -> persistentMappingCache.put(PersistentMappingCache.Type.TEST_SET, xrayConfig.getProjectKey(), cacheKey, issue));
+                    }
+                }
                 if (optionalExistingTestSetIssue.isPresent()) {
                     xrayTestSetIssue = new XrayTestSetIssue(optionalExistingTestSetIssue.get());
                 } else if (xrayMapper.shouldCreateNewTestSet(classContext)) {
@@ -611,11 +1115,54 @@ public abstract class AbstractXrayResultsSynchronizer implements
             }
         }
 
-        // cache could be null
-        this.testSetCacheByClassName.put(cacheKey, xrayTestSetIssue);
+        if (xrayTestSetIssue != null && xrayTestSetIssue.hasKey()) {
+            event.testSetKey = xrayTestSetIssue.getKey();
+            event.testCount = xrayTestSetIssue.getTestKeys().size();
+        }
+        event.commit();
         return Optional.ofNullable(xrayTestSetIssue);
     }
 
+    /**
+     * Requests the Test Set from the key in {@link PersistentMappingCache} instead of searching for it.
+     */
+    private Optional<XrayTestSetIssue> getPersistentlyCachedTestSetIssue(String cacheKey) {
+        if (persistentMappingCache == null) {
+            return Optional.empty();
+        }
+        persistentMappingCache.validate(getXrayUtils());
+        final String projectKey = getXrayConfig().getProjectKey();
+        final Optional<String> optionalTestSetKey = persistentMappingCache.getIssueKey(PersistentMappingCache.Type.TEST_SET, projectKey, cacheKey);
+        if (!optionalTestSetKey.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(getXrayUtils().getIssue(optionalTestSetKey.get(), getFieldNames(getXrayMapper().getTestSetFields()), XrayTestSetIssue::new));
+        } catch (IOException e) {
+            log().warn(String.format("Cached %s %s not found", IssueType.TestSet, optionalTestSetKey.get()));
+            persistentMappingCache.remove(PersistentMappingCache.Type.TEST_SET, projectKey, cacheKey);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The {@link Fields#UPDATED} field is required for validating the {@link PersistentMappingCache}
+     */
+    private List<String> getTestFieldNames() {
+        final List<String> fieldNames = getFieldNames(getXrayMapper().getTestFields());
+        if (persistentMappingCache != null && !fieldNames.isEmpty()) {
+            fieldNames.add(Fields.UPDATED.getFieldName());
+        }
+        return fieldNames;
+    }
+
+    private List<String> getFieldNames(Collection<Field> fields) {
+        if (fields == null) {
+            return new ArrayList<>();
+        }
+        return fields.stream().map(Field::getFieldName).collect(Collectors.toList());
+    }
+
     private void finalizeTestSet(XrayTestSetIssue xrayTestSetIssue, ClassContext classContext) {
         final Class<?> clazz = classContext.getTestClass();
         if (StringUtils.isBlank(xrayTestSetIssue.getSummary())) {
@@ -631,6 +1178,33 @@ public abstract class AbstractXrayResultsSynchronizer implements
         this.loggablePromts.put(message, level);
     }
 
+    private void printRateLimitStatistics() {
+        if (xrayConnector == null) {
+            return;
+        }
+        xrayConnector.getRateLimitFilter()
+                .filter(rateLimitFilter -> rateLimitFilter.getDelayedRequests() > 0)
+                .ifPresent(rateLimitFilter -> log().info(String.format(
+                        "Rate limit delayed %d requests by %d ms in total (max %d ms)",
+                        rateLimitFilter.getDelayedRequests(),
+                        rateLimitFilter.getTotalWaitMillis(),
+                        rateLimitFilter.getMaxWaitMillis()
+                )));
+    }
+
+    /**
+     * @return The metrics of all Jira and Xray requests and of the synchronization,
+     * if {@link XrayConfig#isHttpMetricsEnabled()} is set and the connection has been established
+     */
+    public Optional<XrayMetrics> getMetrics() {
+        final XrayConnector connector = this.xrayConnector;
+        return connector != null ? connector.getMetrics() : Optional.empty();
+    }
+
+    private void recordDuration(String name, long startMillis) {
+        getMetrics().ifPresent(metrics -> metrics.recordDuration(name, System.currentTimeMillis() - startMillis));
+    }
+
     private void printPromptLogs() {
         this.loggablePromts.forEach((key, value) -> {
             switch (value) {
@@ -643,6 +1217,31 @@ public abstract class AbstractXrayResultsSynchronizer implements
         });
     }
 
+    /**
+     * A Test lookup deferred until the next flush
+     */
+    private static class PendingTestLookup {
+        private final String cacheKey;
+        private final JqlQuery testQuery;
+        private final MethodContext methodContext;
+        private final Optional<XrayTestSetIssue> optionalXrayTestSetIssue;
+        private final Set<XrayTestIssue> currentTestIssues;
+
+        private PendingTestLookup(
+                String cacheKey,
+                JqlQuery testQuery,
+                MethodContext methodContext,
+                Optional<XrayTestSetIssue> optionalXrayTestSetIssue,
+                Set<XrayTestIssue> currentTestIssues
+        ) {
+            this.cacheKey = cacheKey;
+            this.testQuery = testQuery;
+            this.methodContext = methodContext;
+            this.optionalXrayTestSetIssue = optionalXrayTestSetIssue;
+            this.currentTestIssues = currentTestIssues;
+        }
+    }
+
     private enum LogLevel {
         WARN, ERROR;
     }
@@ -0,0 +1,202 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlCondition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlValue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.OrJqlCondition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.SummaryContainsExact;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves many Test queries by a few searches.
+ * <p>
+ * Queries which differ only by one {@link SummaryContainsExact} condition, like the ones of {@link DefaultSummaryMapper},
+ * are merged into OR-grouped queries not longer than the given JQL length.
+ * The found Tests are matched back by their exact summary.
+ * All other queries are performed one by one.
+ */
+public class BatchTestResolver implements Loggable {
+
+    private final XrayUtils xrayUtils;
+    private final Collection<String> fields;
+    private final int maxJqlLength;
+
+    /**
+     * @param fields Names of the fields to return. The summary field is always required for matching.
+     * @param maxJqlLength Maximum length of a merged JQL query
+     */
+    public BatchTestResolver(XrayUtils xrayUtils, Collection<String> fields, int maxJqlLength) {
+        this.xrayUtils = xrayUtils;
+        this.maxJqlLength = maxJqlLength;
+        if (fields.isEmpty() || fields.contains(Fields.SUMMARY.getFieldName())) {
+            this.fields = fields;
+        } else {
+            this.fields = new ArrayList<>(fields);
+            this.fields.add(Fields.SUMMARY.getFieldName());
+        }
+    }
+
+    /**
+     * @param queries Test queries by any key
+     * @return The found Tests by the key of their query
+     * @throws UncheckedIOException If a search failed, because Tests missing in the result would be taken as not existing
+     */
+    public <K> Map<K, XrayTestIssue> resolve(Map<K, JqlQuery> queries) {
+        final Map<K, XrayTestIssue> foundTests = new HashMap<>();
+        // Merged queries by the JQL of their common conditions
+        final Map<String, List<BatchEntry<K>>> batches = new LinkedHashMap<>();
+
+        queries.forEach((key, query) -> {
+            final Optional<BatchEntry<K>> optionalBatchEntry = BatchEntry.of(key, query);
+            if (optionalBatchEntry.isPresent()) {
+                final BatchEntry<K> batchEntry = optionalBatchEntry.get();
+                batches.computeIfAbsent(batchEntry.getCommonJql(), jql -> new ArrayList<>()).add(batchEntry);
+            } else {
+                xrayUtils.searchFirstIssue(query, fields, XrayTestIssue::new)
+                        .ifPresent(testIssue -> foundTests.put(key, testIssue));
+            }
+        });
+
+        batches.values().forEach(batchEntries -> {
+            for (List<BatchEntry<K>> chunk : chunkByJqlLength(batchEntries)) {
+                final List<XrayTestIssue> testIssues = xrayUtils.searchIssues(createMergedQuery(chunk), fields, XrayTestIssue::new)
+                        .collect(Collectors.toList());
+                chunk.forEach(batchEntry -> matchBySummary(batchEntry.getSummary(), testIssues)
+                        .ifPresent(testIssue -> foundTests.put(batchEntry.getKey(), testIssue)));
+            }
+        });
+
+        log().debug(String.format("Resolved %d of %d Test queries in %d batches", foundTests.size(), queries.size(), batches.size()));
+        return foundTests;
+    }
+
+    private <K> List<List<BatchEntry<K>>> chunkByJqlLength(List<BatchEntry<K>> batchEntries) {
+        final List<List<BatchEntry<K>>> chunks = new ArrayList<>();
+        List<BatchEntry<K>> chunk = new ArrayList<>();
+        int chunkLength = 0;
+        for (BatchEntry<K> batchEntry : batchEntries) {
+            // Common conditions + " AND (" + summary conditions joined by " OR " + ")"
+            final int entryLength = batchEntry.getSummaryCondition().createJql().length() + 4;
+            final int baseLength = batchEntry.getCommonJql().length() + 7;
+            if (!chunk.isEmpty() && baseLength + chunkLength + entryLength > maxJqlLength) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                chunkLength = 0;
+            }
+            chunk.add(batchEntry);
+            chunkLength += entryLength;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private <K> JqlQuery createMergedQuery(List<BatchEntry<K>> chunk) {
+        final List<JqlCondition> conditions = new ArrayList<>(chunk.get(0).getCommonConditions());
+        conditions.add(new OrJqlCondition(chunk.stream().map(BatchEntry::getSummaryCondition).collect(Collectors.toList())));
+        return new JqlQuery(conditions);
+    }
+
+    /**
+     * Accepts the exact summary only, because the contains operator of Jira also matches longer summaries,
+     * which may belong to other entries of the merged query.
+     */
+    private Optional<XrayTestIssue> matchBySummary(String summary, List<XrayTestIssue> testIssues) {
+        return testIssues.stream()
+                .filter(testIssue -> summary.equals(testIssue.getSummary()))
+                .findFirst();
+    }
+
+    private static class BatchEntry<K> {
+        private final K key;
+        private final List<JqlCondition> commonConditions;
+        private final String commonJql;
+        private final JqlCondition summaryCondition;
+        private final String summary;
+
+        private BatchEntry(K key, List<JqlCondition> commonConditions, JqlCondition summaryCondition, String summary) {
+            this.key = key;
+            this.commonConditions = commonConditions;
+            this.commonJql = new JqlQuery(commonConditions).createJql();
+            this.summaryCondition = summaryCondition;
+            this.summary = summary;
+        }
+
+        /**
+         * @return An entry if the query contains exactly one {@link SummaryContainsExact} condition
+         */
+        static <K> Optional<BatchEntry<K>> of(K key, JqlQuery query) {
+            final List<JqlCondition> summaryConditions = query.getConditions().stream()
+                    .filter(jqlCondition -> jqlCondition instanceof SummaryContainsExact)
+                    .collect(Collectors.toList());
+            if (summaryConditions.size() != 1 || !(summaryConditions.get(0).getOperand() instanceof JqlValue)) {
+                return Optional.empty();
+            }
+            final JqlCondition summaryCondition = summaryConditions.get(0);
+            final String summary = ((JqlValue) summaryCondition.getOperand()).getValue();
+            if (StringUtils.isBlank(summary)) {
+                return Optional.empty();
+            }
+            final List<JqlCondition> commonConditions = query.getConditions().stream()
+                    .filter(jqlCondition -> jqlCondition != summaryCondition)
+                    .collect(Collectors.toList());
+            return Optional.of(new BatchEntry<>(key, commonConditions, summaryCondition, summary));
+        }
+
+        K getKey() {
+            return key;
+        }
+
+        List<JqlCondition> getCommonConditions() {
+            return commonConditions;
+        }
+
+        String getCommonJql() {
+            return commonJql;
+        }
+
+        JqlCondition getSummaryCondition() {
+            return summaryCondition;
+        }
+
+        String getSummary() {
+            return summary;
+        }
+    }
+}
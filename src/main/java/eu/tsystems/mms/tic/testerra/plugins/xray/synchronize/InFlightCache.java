@@ -0,0 +1,70 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caches values by key and makes sure that a value is loaded only once.
+ * The first caller for a key runs the loader, concurrent callers for the same key wait for its result.
+ * If the loader fails, the key is not cached and the failure is passed to all waiting callers.
+ */
+public class InFlightCache<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> futures = new ConcurrentHashMap<>();
+
+    public V get(K key, Supplier<V> loader) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> inFlightFuture = futures.putIfAbsent(key, future);
+        if (inFlightFuture != null) {
+            return await(inFlightFuture);
+        }
+
+        try {
+            final V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            futures.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return futures.size();
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.config.XrayConfig;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.XrayConnector;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports test results into Xray, which could not be synchronized during the test execution.
+ * <p>
+ * Supported sources are serialized {@link XrayTestExecutionImport} files ({@code *.json}),
+ * {@link TestRunSpool} files ({@code *.jsonl}) and directories containing them.
+ * Imports of different Test Executions run in parallel, imports of the same Test Execution one after another.
+ * Failed imports are retried with increasing delay.
+ * <p>
+ * Usage: {@code OfflineImportReplay [--threads n] [--retries n] file-or-directory...}
+ */
+public class OfflineImportReplay implements Loggable {
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 2000;
+
+    private final XrayUtils xrayUtils;
+    private final int parallelism;
+    private final int maxRetries;
+
+    /**
+     * Result of a replay
+     */
+    public static class Summary {
+        private final AtomicInteger imports = new AtomicInteger();
+        private final AtomicInteger failedImports = new AtomicInteger();
+        private final AtomicLong importedTestRuns = new AtomicLong();
+        private final AtomicLong failedTestRuns = new AtomicLong();
+        private long durationMillis;
+
+        public int getImports() {
+            return imports.get();
+        }
+
+        public int getFailedImports() {
+            return failedImports.get();
+        }
+
+        public long getImportedTestRuns() {
+            return importedTestRuns.get();
+        }
+
+        public long getFailedTestRuns() {
+            return failedTestRuns.get();
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        @Override
+        public String toString() {
+            final double seconds = Math.max(durationMillis, 1) / 1000d;
+            return String.format("Imported %d test runs by %d of %d imports in %.1f s (%.1f test runs/s), %d test runs failed",
+                    getImportedTestRuns(),
+                    getImports() - getFailedImports(),
+                    getImports(),
+                    seconds,
+                    getImportedTestRuns() / seconds,
+                    getFailedTestRuns()
+            );
+        }
+    }
+
+    /**
+     * A single import and the action to perform when it succeeded
+     */
+    private static class ReplayImport {
+        private final String source;
+        private final XrayTestExecutionImport testExecutionImport;
+        private final Runnable onSuccess;
+
+        private ReplayImport(String source, XrayTestExecutionImport testExecutionImport, Runnable onSuccess) {
+            this.source = source;
+            this.testExecutionImport = testExecutionImport;
+            this.onSuccess = onSuccess;
+        }
+    }
+
+    public OfflineImportReplay(XrayUtils xrayUtils, int parallelism, int maxRetries) {
+        this.xrayUtils = xrayUtils;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxRetries = Math.max(0, maxRetries);
+    }
+
+    public Summary replay(Collection<File> paths) throws InterruptedException {
+        final long start = System.currentTimeMillis();
+        final Summary summary = new Summary();
+        final List<TestRunSpool> spools = new ArrayList<>();
+        final List<ReplayImport> replayImports = new ArrayList<>();
+
+        for (File file : collectFiles(paths)) {
+            try {
+                if (file.getName().endsWith(".jsonl")) {
+                    final TestRunSpool spool = new TestRunSpool(file);
+                    spool.open();
+                    spools.add(spool);
+                    replayImports.addAll(readSpool(file, spool));
+                } else {
+                    final XrayTestExecutionImport testExecutionImport = JsonCodec.TEST_EXECUTION_IMPORT_READER.readValue(file);
+                    replayImports.add(new ReplayImport(file.getName(), testExecutionImport, () -> {}));
+                }
+            } catch (IOException e) {
+                log().error(String.format("Unable to read %s: %s", file, e.getMessage()));
+            }
+        }
+
+        // Imports into the same Test Execution must not run concurrently
+        final Map<Object, List<ReplayImport>> importsByExecution = new LinkedHashMap<>();
+        replayImports.forEach(replayImport -> {
+            final String testExecutionKey = replayImport.testExecutionImport.getTestExecutionKey();
+            final Object group = testExecutionKey != null ? testExecutionKey : replayImport;
+            importsByExecution.computeIfAbsent(group, key -> new ArrayList<>()).add(replayImport);
+        });
+
+        final int total = replayImports.size();
+        log().info(String.format("Replay %d imports of %d Test Executions with %d threads", total, importsByExecution.size(), parallelism));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "Xray-Replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        importsByExecution.values().forEach(group -> executor.execute(() -> group.forEach(replayImport -> {
+            importWithRetries(replayImport, summary);
+            log().info(String.format("Progress: %d/%d imports", summary.getImports(), total));
+        })));
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log().info(String.format("Progress: %d/%d imports, %d test runs imported", summary.getImports(), total, summary.getImportedTestRuns()));
+        }
+
+        spools.forEach(TestRunSpool::close);
+        summary.durationMillis = System.currentTimeMillis() - start;
+        log().info(summary.toString());
+        return summary;
+    }
+
+    private List<ReplayImport> readSpool(File file, TestRunSpool spool) {
+        final List<ReplayImport> replayImports = new ArrayList<>();
+        for (TestRunSpool.PendingExecution pendingExecution : spool.getPendingExecutions()) {
+            final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport(pendingExecution.getTestExecutionKey());
+            testExecutionImport.addTests(new HashSet<>(pendingExecution.getTestRuns().values()));
+            final List<String> ids = new ArrayList<>(pendingExecution.getTestRuns().keySet());
+            replayImports.add(new ReplayImport(file.getName(), testExecutionImport, () -> spool.markDoneById(ids)));
+        }
+        return replayImports;
+    }
+
+    private void importWithRetries(ReplayImport replayImport, Summary summary) {
+        final XrayTestExecutionImport testExecutionImport = replayImport.testExecutionImport;
+        final int testRuns = testExecutionImport.getTests().size();
+        long delayMillis = INITIAL_RETRY_DELAY_MILLIS;
+
+        for (int attempt = 0; ; attempt++) {
+            try {
+                xrayUtils.importTestExecution(testExecutionImport);
+                replayImport.onSuccess.run();
+                summary.importedTestRuns.addAndGet(testRuns);
+                log().info(String.format("Imported %d test runs of %s into %s", testRuns, replayImport.source, testExecutionImport.getTestExecutionKey()));
+                break;
+            } catch (IOException e) {
+                if (attempt >= maxRetries) {
+                    summary.failedImports.incrementAndGet();
+                    summary.failedTestRuns.addAndGet(testRuns);
+                    log().error(String.format("Unable to import %d test runs of %s: %s", testRuns, replayImport.source, e.getMessage()));
+                    break;
+                }
+                log().warn(String.format("Import of %s failed, retry %d/%d in %d ms: %s", replayImport.source, attempt + 1, maxRetries, delayMillis, e.getMessage()));
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    summary.failedImports.incrementAndGet();
+                    summary.failedTestRuns.addAndGet(testRuns);
+                    break;
+                }
+                delayMillis *= 2;
+            }
+        }
+        summary.imports.incrementAndGet();
+    }
+
+    private List<File> collectFiles(Collection<File> paths) {
+        final List<File> files = new ArrayList<>();
+        for (File path : paths) {
+            if (path.isDirectory()) {
+                final File[] children = path.listFiles((dir, name) -> name.endsWith(".json") || name.endsWith(".jsonl"));
+                if (children != null) {
+                    Arrays.sort(children);
+                    files.addAll(Arrays.asList(children));
+                }
+            } else if (path.isFile()) {
+                files.add(path);
+            } else {
+                log().warn(String.format("%s not found", path));
+            }
+        }
+        return files;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int parallelism = 4;
+        int maxRetries = 3;
+        final List<File> paths = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    parallelism = Integer.parseInt(args[++i]);
+                    break;
+                case "--retries":
+                    maxRetries = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    paths.add(new File(args[i]));
+            }
+        }
+
+        if (paths.isEmpty()) {
+            System.err.println("Usage: OfflineImportReplay [--threads n] [--retries n] file-or-directory...");
+            System.exit(2);
+        }
+
+        final XrayUtils xrayUtils = new XrayUtils(new XrayConnector().getWebResource());
+        xrayUtils.setImportMaxBytes(XrayConfig.getInstance().getSyncImportMaxBytes());
+        final Summary summary = new OfflineImportReplay(xrayUtils, parallelism, maxRetries).replay(paths);
+        System.exit(summary.getFailedImports() > 0 ? 1 : 0);
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the mapping of test methods and classes to Xray Test and Test Set keys across executions.
+ * <p>
+ * Entries are keyed by type, project key and the qualified method or class name.
+ * They expire after the configured time to live and are dropped, when their issue was modified in Jira since caching.
+ */
+public class PersistentMappingCache implements Loggable {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final ObjectReader CACHE_FILE_READER = JsonCodec.getObjectMapper().reader(CacheFile.class);
+    private static final ObjectWriter CACHE_FILE_WRITER = JsonCodec.getObjectMapper().writerWithType(CacheFile.class);
+
+    public enum Type {
+        TEST,
+        TEST_SET
+    }
+
+    private final File file;
+    private final long timeToLiveMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private boolean validated = false;
+
+    public PersistentMappingCache(File file, long timeToLiveMillis) {
+        this.file = file;
+        this.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Reads the cache file and drops expired entries.
+     */
+    public void load() {
+        entries.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            final CacheFile cacheFile = CACHE_FILE_READER.readValue(file);
+            if (cacheFile.getVersion() != FORMAT_VERSION || cacheFile.getEntries() == null) {
+                log().info(String.format("Ignore mapping cache %s of unknown version", file));
+                return;
+            }
+            final long expiredBefore = System.currentTimeMillis() - timeToLiveMillis;
+            cacheFile.getEntries().forEach((name, entry) -> {
+                if (entry.getCached() >= expiredBefore && entry.getKey() != null) {
+                    entries.put(name, entry);
+                }
+            });
+            log().info(String.format("Loaded %d of %d entries from mapping cache %s", entries.size(), cacheFile.getEntries().size(), file));
+        } catch (IOException e) {
+            log().warn(String.format("Unable to read mapping cache %s", file), e);
+        }
+    }
+
+    /**
+     * Drops all entries whose issue doesn't exist anymore or was modified since caching.
+     * The issues are requested by a few searches on first call only. If a search fails, all entries are dropped.
+     */
+    public synchronized void validate(XrayUtils xrayUtils) {
+        if (validated) {
+            return;
+        }
+        validated = true;
+
+        final List<String> issueKeys = entries.values().stream()
+                .map(Entry::getKey)
+                .distinct()
+                .collect(Collectors.toList());
+        if (issueKeys.isEmpty()) {
+            return;
+        }
+
+        final Map<String, Long> updatedByKey = new HashMap<>();
+        final List<String> fields = Collections.singletonList(Fields.UPDATED.getFieldName());
+        try {
+            xrayUtils.searchIssuesByKeys(issueKeys, fields).forEach(issue -> updatedByKey.put(issue.getKey(), getUpdatedMillis(issue)));
+        } catch (UncheckedIOException e) {
+            // Entries that cannot be validated are not trusted
+            log().warn(String.format("Unable to validate mapping cache, drop all %d entries", entries.size()), e);
+            entries.clear();
+            return;
+        }
+
+        final int sizeBefore = entries.size();
+        entries.values().removeIf(entry -> {
+            final Long updated = updatedByKey.get(entry.getKey());
+            return updated == null || (entry.getUpdated() != 0 && updated != entry.getUpdated());
+        });
+        log().info(String.format("Validated mapping cache: %d of %d entries are up to date", entries.size(), sizeBefore));
+    }
+
+    public Optional<String> getIssueKey(Type type, String projectKey, String name) {
+        return Optional.ofNullable(entries.get(createName(type, projectKey, name))).map(Entry::getKey);
+    }
+
+    /**
+     * Test Sets are modified by the synchronization itself, so only their existence is validated.
+     *
+     * @param issue The issue including the {@link Fields#UPDATED} field
+     */
+    public void put(Type type, String projectKey, String name, JiraIssue issue) {
+        if (!issue.hasKey()) {
+            return;
+        }
+        final Entry entry = new Entry();
+        entry.setKey(issue.getKey());
+        entry.setUpdated(type == Type.TEST ? getUpdatedMillis(issue) : 0);
+        entry.setCached(System.currentTimeMillis());
+        entries.put(createName(type, projectKey, name), entry);
+    }
+
+    public void remove(Type type, String projectKey, String name) {
+        entries.remove(createName(type, projectKey, name));
+    }
+
+    /**
+     * Writes the cache file by replacing the existing one.
+     */
+    public void save() {
+        final CacheFile cacheFile = new CacheFile();
+        cacheFile.setVersion(FORMAT_VERSION);
+        cacheFile.setEntries(new HashMap<>(entries));
+        try {
+            final File directory = file.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+            CACHE_FILE_WRITER.writeValue(tempFile, cacheFile);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            log().info(String.format("Saved %d entries to mapping cache %s", entries.size(), file));
+        } catch (IOException e) {
+            log().warn(String.format("Unable to write mapping cache %s", file), e);
+        }
+    }
+
+    private String createName(Type type, String projectKey, String name) {
+        return String.format("%s|%s|%s", type, projectKey, name);
+    }
+
+    private long getUpdatedMillis(JiraIssue issue) {
+        final Date updated = issue.getUpdated();
+        return updated != null ? updated.getTime() : 0;
+    }
+
+    public static class CacheFile {
+        private int version;
+        private Map<String, Entry> entries;
+
+        public int getVersion() {
+            return version;
+        }
+
+        public void setVersion(int version) {
+            this.version = version;
+        }
+
+        public Map<String, Entry> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(Map<String, Entry> entries) {
+            this.entries = entries;
+        }
+    }
+
+    public static class Entry {
+        private String key;
+        private long updated;
+        private long cached;
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return Last modification of the issue in epoch milliseconds or 0 if it is not validated
+         */
+        public long getUpdated() {
+            return updated;
+        }
+
+        public void setUpdated(long updated) {
+            this.updated = updated;
+        }
+
+        /**
+         * @return Creation of this entry in epoch milliseconds
+         */
+        public long getCached() {
+            return cached;
+        }
+
+        public void setCached(long cached) {
+            this.cached = cached;
+        }
+    }
+}
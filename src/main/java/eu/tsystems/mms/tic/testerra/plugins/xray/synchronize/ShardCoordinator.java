@@ -0,0 +1,187 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Aggregates the test runs of several shards (JVMs or CI nodes) into a single Test Execution.
+ * <p>
+ * Instead of importing, each shard writes its test runs as {@link XrayTestExecutionImport} files into a shared directory
+ * and marks itself as done when its execution finishes.
+ * The last finishing shard is elected as aggregator by atomically creating a lock file.
+ * It searches or creates the Test Execution once and imports the test runs of all shards file by file.
+ * <p>
+ * The shared directory must be unique per pipeline run. If a shard never finishes, no aggregator is elected
+ * and the files can be imported by {@link OfflineImportReplay}.
+ */
+public class ShardCoordinator implements Loggable {
+
+    private static final String RUNS_PREFIX = "runs-";
+    private static final String DONE_PREFIX = "done-";
+    private static final String LOCK_FILE = "aggregator.lock";
+    private static final String EXECUTION_KEY_FILE = "execution.key";
+
+    private final File directory;
+    private final String shardId;
+    private final int shardCount;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ShardCoordinator(File directory, String shardId, int shardCount) {
+        this.directory = directory;
+        this.shardId = shardId;
+        this.shardCount = shardCount;
+    }
+
+    public String getShardId() {
+        return shardId;
+    }
+
+    /**
+     * Writes the test runs of this shard into the shared directory.
+     * Evidences are written inline, because their files may not be accessible from the aggregator.
+     */
+    public void writeTestRuns(XrayTestExecutionImport testExecutionImport) throws IOException {
+        Files.createDirectories(directory.toPath());
+        final String fileName = String.format("%s%s-%05d.json", RUNS_PREFIX, shardId, sequence.incrementAndGet());
+        final File tempFile = File.createTempFile(fileName, ".tmp", directory);
+        JsonCodec.TEST_EXECUTION_IMPORT_WRITER.writeValue(tempFile, testExecutionImport);
+        // Atomic, so that the aggregator never reads incomplete files
+        Files.move(tempFile.toPath(), new File(directory, fileName).toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Marks this shard as done.
+     *
+     * @return True if this shard finished last and has been elected as aggregator
+     */
+    public boolean finishShard() throws IOException {
+        Files.createDirectories(directory.toPath());
+        Files.write(new File(directory, DONE_PREFIX + shardId).toPath(), new byte[0]);
+
+        final int finishedShards = listFiles(DONE_PREFIX + "*").size();
+        log().info(String.format("Shard %s finished as %d of %d", shardId, finishedShards, shardCount));
+        if (finishedShards < shardCount) {
+            return false;
+        }
+        try {
+            Files.write(new File(directory, LOCK_FILE).toPath(), shardId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW);
+            log().info(String.format("Shard %s aggregates the test runs of %d shards", shardId, shardCount));
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The files of test runs written by all shards
+     */
+    public List<Path> listTestRunFiles() throws IOException {
+        return listFiles(RUNS_PREFIX + "*.json");
+    }
+
+    /**
+     * Reads a single file of test runs, so that the aggregator holds the evidences of one file at once only
+     */
+    public XrayTestExecutionImport readTestRuns(Path path) throws IOException {
+        return JsonCodec.TEST_EXECUTION_IMPORT_READER.readValue(path.toFile());
+    }
+
+    /**
+     * Removes an imported file of test runs, so that it is not imported again
+     */
+    public void removeTestRuns(Path path) throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Imports the test runs of all shards file by file into the Test Execution, which is created by the first import.
+     * Imported files are removed, so that a failed aggregation can be continued.
+     *
+     * @return The number of imported test runs
+     */
+    public int importTestRuns(XrayUtils xrayUtils, XrayTestExecutionIssue executionIssue, Date finishDate) throws IOException {
+        final List<Path> testRunFiles = listTestRunFiles();
+        int testRunCount = 0;
+        if (testRunFiles.isEmpty()) {
+            importTestRuns(xrayUtils, executionIssue, Collections.emptyList(), finishDate);
+        }
+        // File by file, because the shards write their evidences inline
+        for (Path testRunFile : testRunFiles) {
+            testRunCount += importTestRuns(xrayUtils, executionIssue, readTestRuns(testRunFile).getTests(), finishDate);
+            removeTestRuns(testRunFile);
+        }
+        complete(executionIssue.getKey());
+        return testRunCount;
+    }
+
+    private int importTestRuns(XrayUtils xrayUtils, XrayTestExecutionIssue executionIssue, Collection<XrayTestExecutionImport.TestRun> testRuns, Date finishDate) throws IOException {
+        final XrayTestExecutionImport xrayTestExecutionImport = new XrayTestExecutionImport(executionIssue);
+        xrayTestExecutionImport.addTests(new HashSet<>(testRuns));
+        xrayTestExecutionImport.getInfo().setFinishDate(finishDate);
+        try {
+            xrayUtils.importTestExecution(xrayTestExecutionImport);
+        } finally {
+            if (xrayTestExecutionImport.getTestExecutionKey() != null) {
+                executionIssue.setKey(xrayTestExecutionImport.getTestExecutionKey());
+            }
+        }
+        return xrayTestExecutionImport.getTests().size();
+    }
+
+    /**
+     * Records the key of the Test Execution, after the test runs of all shards have been imported
+     */
+    public void complete(String testExecutionKey) throws IOException {
+        Files.write(new File(directory, EXECUTION_KEY_FILE).toPath(), testExecutionKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Path> listFiles(String glob) throws IOException {
+        final List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory.toPath(), glob)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        return paths;
+    }
+}
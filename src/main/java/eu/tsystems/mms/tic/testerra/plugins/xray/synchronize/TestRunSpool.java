@@ -0,0 +1,442 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only spool of test runs, which have been queued but not yet imported.
+ * <p>
+ * Each queued test run is appended as a JSON line. After a successful import, a line marking the runs as done is appended.
+ * Test runs still pending when the spool is opened again belong to a previous execution, that was not finished.
+ * They are available by {@link #getPendingExecutions()} for replay.
+ * Evidences created from files are spooled as file references.
+ */
+public class TestRunSpool implements Loggable, Closeable {
+
+    public enum RecordType {
+        RUN,
+        DONE,
+        EXECUTION
+    }
+
+    /**
+     * Test runs of a previous session, which have not been imported
+     */
+    public static class PendingExecution {
+        private final String session;
+        private String testExecutionKey;
+        private final Map<String, XrayTestExecutionImport.TestRun> testRuns = new LinkedHashMap<>();
+
+        private PendingExecution(String session) {
+            this.session = session;
+        }
+
+        public String getSession() {
+            return session;
+        }
+
+        /**
+         * @return The key of the Test Execution or null if the session ended before its first import
+         */
+        public String getTestExecutionKey() {
+            return testExecutionKey;
+        }
+
+        /**
+         * @return Test runs by their spool id
+         */
+        public Map<String, XrayTestExecutionImport.TestRun> getTestRuns() {
+            return testRuns;
+        }
+    }
+
+    private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+    private static final ObjectReader RECORD_READER = OBJECT_MAPPER.reader(Record.class);
+    private static final ObjectWriter RECORD_WRITER = OBJECT_MAPPER.writerWithType(Record.class);
+
+    private final File file;
+    private final String session = UUID.randomUUID().toString();
+    private final List<PendingExecution> pendingExecutions = new ArrayList<>();
+    private final Map<XrayTestExecutionImport.TestRun, String> idsByTestRun = new IdentityHashMap<>();
+    private final Set<String> pendingIds = Collections.newSetFromMap(new LinkedHashMap<>());
+    private Writer writer;
+    private String testExecutionKey;
+
+    public TestRunSpool(File file) {
+        this.file = file;
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        final ObjectMapper objectMapper = JsonCodec.copyObjectMapper();
+        objectMapper.addMixInAnnotations(XrayTestExecutionImport.TestRun.Evidence.class, SpooledEvidence.class);
+        return objectMapper;
+    }
+
+    /**
+     * Reads the pending test runs of previous sessions, compacts the spool file and opens it for appending.
+     */
+    public synchronized void open() throws IOException {
+        readPendingExecutions();
+
+        final File directory = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        final File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+        try (Writer compactWriter = Files.newBufferedWriter(tempFile.toPath(), StandardCharsets.UTF_8)) {
+            for (PendingExecution pendingExecution : pendingExecutions) {
+                if (pendingExecution.testExecutionKey != null) {
+                    writeRecord(compactWriter, createExecutionRecord(pendingExecution.session, pendingExecution.testExecutionKey));
+                }
+                for (Map.Entry<String, XrayTestExecutionImport.TestRun> entry : pendingExecution.testRuns.entrySet()) {
+                    writeRecord(compactWriter, createRunRecord(pendingExecution.session, entry.getKey(), entry.getValue()));
+                    pendingIds.add(entry.getKey());
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        if (!pendingIds.isEmpty()) {
+            log().info(String.format("Found %d pending test runs of %d previous executions in %s", pendingIds.size(), pendingExecutions.size(), file));
+        }
+    }
+
+    private void readPendingExecutions() throws IOException {
+        pendingExecutions.clear();
+        if (!file.isFile()) {
+            return;
+        }
+        final Map<String, PendingExecution> executionsBySession = new LinkedHashMap<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final Record record;
+                try {
+                    record = RECORD_READER.readValue(line);
+                } catch (IOException e) {
+                    // The last line may be incomplete, if the JVM was killed while writing
+                    log().warn(String.format("Skip invalid line %d of %s", lineNumber, file));
+                    continue;
+                }
+                switch (record.getType()) {
+                    case RUN:
+                        removeMissingEvidences(record.getTestRun());
+                        executionsBySession.computeIfAbsent(record.getSession(), PendingExecution::new).testRuns.put(record.getId(), record.getTestRun());
+                        break;
+                    case DONE:
+                        // Ids are unique, and a session marks the replayed runs of previous sessions as done
+                        executionsBySession.values().forEach(pendingExecution -> record.getIds().forEach(pendingExecution.testRuns::remove));
+                        break;
+                    case EXECUTION:
+                        executionsBySession.computeIfAbsent(record.getSession(), PendingExecution::new).testExecutionKey = record.getTestExecutionKey();
+                        break;
+                }
+            }
+        }
+        executionsBySession.values().stream()
+                .filter(pendingExecution -> !pendingExecution.testRuns.isEmpty())
+                .forEach(pendingExecutions::add);
+    }
+
+    /**
+     * Removes evidences whose files have been deleted in the meantime
+     */
+    private void removeMissingEvidences(XrayTestExecutionImport.TestRun testRun) {
+        if (testRun.getEvidences() != null) {
+            testRun.getEvidences().removeIf(Objects::isNull);
+        }
+        if (testRun.getSteps() != null) {
+            testRun.getSteps().stream()
+                    .map(XrayTestExecutionImport.TestRun.Step::getEvidences)
+                    .filter(Objects::nonNull)
+                    .forEach(evidences -> evidences.removeIf(Objects::isNull));
+        }
+    }
+
+    public synchronized List<PendingExecution> getPendingExecutions() {
+        return new ArrayList<>(pendingExecutions);
+    }
+
+    /**
+     * Records a queued test run
+     */
+    public synchronized void append(XrayTestExecutionImport.TestRun testRun) {
+        final String id = UUID.randomUUID().toString();
+        idsByTestRun.put(testRun, id);
+        pendingIds.add(id);
+        write(createRunRecord(session, id, testRun));
+    }
+
+    /**
+     * Tracks a pending test run of a previous session, which is imported by this session
+     */
+    public synchronized void adopt(String id, XrayTestExecutionImport.TestRun testRun) {
+        idsByTestRun.put(testRun, id);
+    }
+
+    /**
+     * Records the Test Execution, the test runs of this session are imported to
+     */
+    public synchronized void setTestExecutionKey(String testExecutionKey) {
+        if (testExecutionKey == null || testExecutionKey.equals(this.testExecutionKey)) {
+            return;
+        }
+        this.testExecutionKey = testExecutionKey;
+        write(createExecutionRecord(session, testExecutionKey));
+    }
+
+    /**
+     * Marks the test runs as successfully imported
+     */
+    public synchronized void markDone(Collection<XrayTestExecutionImport.TestRun> testRuns) {
+        final List<String> ids = testRuns.stream()
+                .map(idsByTestRun::remove)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        markDoneById(ids);
+    }
+
+    /**
+     * Marks test runs of a previous session as successfully imported
+     */
+    public synchronized void markDoneById(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        pendingIds.removeAll(ids);
+        final Record record = new Record();
+        record.setType(RecordType.DONE);
+        record.setSession(session);
+        record.setIds(new ArrayList<>(ids));
+        write(record);
+    }
+
+    /**
+     * Closes the spool and deletes the file, if no test runs are pending.
+     */
+    @Override
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+            writer = null;
+            if (pendingIds.isEmpty()) {
+                Files.deleteIfExists(file.toPath());
+            } else {
+                log().warn(String.format("%d test runs are not imported and kept in %s for replay", pendingIds.size(), file));
+            }
+        } catch (IOException e) {
+            log().error(String.format("Unable to close %s", file), e);
+        }
+    }
+
+    private Record createRunRecord(String session, String id, XrayTestExecutionImport.TestRun testRun) {
+        final Record record = new Record();
+        record.setType(RecordType.RUN);
+        record.setSession(session);
+        record.setId(id);
+        record.setTestRun(testRun);
+        return record;
+    }
+
+    private Record createExecutionRecord(String session, String testExecutionKey) {
+        final Record record = new Record();
+        record.setType(RecordType.EXECUTION);
+        record.setSession(session);
+        record.setTestExecutionKey(testExecutionKey);
+        return record;
+    }
+
+    private void write(Record record) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writeRecord(writer, record);
+            // Hand over to the operating system, so that the record survives a killed JVM
+            writer.flush();
+        } catch (IOException e) {
+            log().error(String.format("Unable to write to %s", file), e);
+        }
+    }
+
+    private void writeRecord(Writer writer, Record record) throws IOException {
+        writer.write(RECORD_WRITER.writeValueAsString(record));
+        writer.write('\n');
+    }
+
+    public static class Record {
+        private RecordType type;
+        private String session;
+        private String id;
+        private List<String> ids;
+        private String testExecutionKey;
+        private XrayTestExecutionImport.TestRun testRun;
+
+        public RecordType getType() {
+            return type;
+        }
+
+        public void setType(RecordType type) {
+            this.type = type;
+        }
+
+        public String getSession() {
+            return session;
+        }
+
+        public void setSession(String session) {
+            this.session = session;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public List<String> getIds() {
+            return ids;
+        }
+
+        public void setIds(List<String> ids) {
+            this.ids = ids;
+        }
+
+        public String getTestExecutionKey() {
+            return testExecutionKey;
+        }
+
+        public void setTestExecutionKey(String testExecutionKey) {
+            this.testExecutionKey = testExecutionKey;
+        }
+
+        public XrayTestExecutionImport.TestRun getTestRun() {
+            return testRun;
+        }
+
+        public void setTestRun(XrayTestExecutionImport.TestRun testRun) {
+            this.testRun = testRun;
+        }
+    }
+
+    @JsonSerialize(using = SpooledEvidenceSerializer.class)
+    @JsonDeserialize(using = SpooledEvidenceDeserializer.class)
+    private abstract static class SpooledEvidence {
+    }
+
+    /**
+     * Writes the file reference instead of the content of file evidences
+     */
+    private static class SpooledEvidenceSerializer extends JsonSerializer<XrayTestExecutionImport.TestRun.Evidence> {
+
+        @Override
+        public void serialize(XrayTestExecutionImport.TestRun.Evidence evidence, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject();
+            if (evidence.getFile().isPresent()) {
+                generator.writeStringField("file", evidence.getFile().get().getAbsolutePath());
+            } else if (evidence.getData() != null) {
+                generator.writeStringField("data", evidence.getData());
+            }
+            if (evidence.getFilename() != null) {
+                generator.writeStringField("filename", evidence.getFilename());
+            }
+            if (evidence.getContentType() != null) {
+                generator.writeStringField("contentType", evidence.getContentType());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Returns null for evidences of deleted files, which are removed by {@link #removeMissingEvidences(XrayTestExecutionImport.TestRun)}
+     */
+    private static class SpooledEvidenceDeserializer extends JsonDeserializer<XrayTestExecutionImport.TestRun.Evidence> {
+
+        @Override
+        public XrayTestExecutionImport.TestRun.Evidence deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            final JsonNode node = parser.readValueAsTree();
+            XrayTestExecutionImport.TestRun.Evidence evidence;
+            if (node.hasNonNull("file")) {
+                final File file = new File(node.get("file").asText());
+                if (!file.isFile()) {
+                    return null;
+                }
+                evidence = new XrayTestExecutionImport.TestRun.Evidence(file);
+            } else {
+                evidence = new XrayTestExecutionImport.TestRun.Evidence();
+                if (node.hasNonNull("data")) {
+                    evidence.setData(node.get("data").asText());
+                }
+            }
+            if (node.hasNonNull("filename")) {
+                evidence.setFilename(node.get("filename").asText());
+            }
+            if (node.hasNonNull("contentType")) {
+                evidence.setContentType(node.get("contentType").asText());
+            }
+            return evidence;
+        }
+    }
+}
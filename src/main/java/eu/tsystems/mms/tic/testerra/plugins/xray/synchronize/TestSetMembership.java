@@ -0,0 +1,146 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.synchronize;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestSetIssue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Tracks the Tests of a Test Set and the ones added since its last synchronization.
+ * Membership is checked by a hash set, the Test keys of the issue are kept in sync for creating new Test Sets.
+ */
+public class TestSetMembership {
+
+    private final XrayTestSetIssue testSetIssue;
+    private final Set<String> testKeys;
+    private final Set<String> addedTestKeys = new LinkedHashSet<>();
+    private boolean fieldsSynchronized = false;
+
+    public TestSetMembership(XrayTestSetIssue testSetIssue) {
+        this.testSetIssue = testSetIssue;
+        this.testKeys = new HashSet<>(testSetIssue.getTestKeys());
+    }
+
+    public XrayTestSetIssue getTestSetIssue() {
+        return testSetIssue;
+    }
+
+    /**
+     * @return The keys which were not member of the Test Set before
+     */
+    public synchronized List<String> addTestKeys(Collection<String> testKeys) {
+        final List<String> newTestKeys = new ArrayList<>();
+        for (String testKey : testKeys) {
+            if (this.testKeys.add(testKey)) {
+                newTestKeys.add(testKey);
+            }
+        }
+        addedTestKeys.addAll(newTestKeys);
+        testSetIssue.getTestKeys().addAll(newTestKeys);
+        return newTestKeys;
+    }
+
+    public synchronized boolean contains(String testKey) {
+        return testKeys.contains(testKey);
+    }
+
+    public synchronized int size() {
+        return testKeys.size();
+    }
+
+    /**
+     * @return The keys added since the last call of {@link #markSynchronized(Collection)}
+     */
+    public synchronized List<String> getAddedTestKeys() {
+        return new ArrayList<>(addedTestKeys);
+    }
+
+    public synchronized boolean hasAddedTestKeys() {
+        return !addedTestKeys.isEmpty();
+    }
+
+    /**
+     * Replaces keys like the temporary ones of new Tests
+     */
+    public synchronized void replaceTestKeys(Map<String, String> replacements) {
+        replace(testKeys, replacements);
+        replace(addedTestKeys, replacements);
+        testSetIssue.getTestKeys().replaceAll(testKey -> replacements.getOrDefault(testKey, testKey));
+    }
+
+    public synchronized boolean removeTestKeysIf(Predicate<String> filter) {
+        testKeys.removeIf(filter);
+        addedTestKeys.removeIf(filter);
+        return testSetIssue.getTestKeys().removeIf(filter);
+    }
+
+    /**
+     * Forgets the given keys as added. Keys added in the meantime are kept for the next synchronization.
+     */
+    public synchronized void markSynchronized(Collection<String> synchronizedTestKeys) {
+        addedTestKeys.removeAll(synchronizedTestKeys);
+        fieldsSynchronized = true;
+    }
+
+    /**
+     * Adds this membership to the sync queue, unless it is already queued.
+     * Happens under the same lock as {@link #removeFromQueueIfSynchronized(Collection)}, so added keys are never left unqueued.
+     */
+    public synchronized void addToQueue(Collection<TestSetMembership> syncQueue) {
+        if (!syncQueue.contains(this)) {
+            syncQueue.add(this);
+        }
+    }
+
+    /**
+     * Removes this membership from the sync queue, unless keys have been added since the last synchronization.
+     * @return TRUE if removed
+     */
+    public synchronized boolean removeFromQueueIfSynchronized(Collection<TestSetMembership> syncQueue) {
+        if (hasAddedTestKeys()) {
+            return false;
+        }
+        return syncQueue.remove(this);
+    }
+
+    /**
+     * @return TRUE if the fields of the Test Set besides its Tests have been synchronized once
+     */
+    public synchronized boolean isFieldsSynchronized() {
+        return fieldsSynchronized;
+    }
+
+    private void replace(Set<String> keys, Map<String, String> replacements) {
+        replacements.forEach((oldKey, newKey) -> {
+            if (keys.remove(oldKey)) {
+                keys.add(newKey);
+            }
+        });
+    }
+}
@@ -27,6 +27,8 @@ import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.IssueTypeEquals;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.RevisionContainsExact;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.SummaryContainsExact;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Field;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionIssue;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestIssue;
@@ -37,6 +39,8 @@ import eu.tsystems.mms.tic.testframework.report.model.context.MethodContext;
 import org.testng.ITestClass;
 import org.testng.ITestResult;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedList;
 
 public interface XrayMapper {
@@ -71,6 +75,15 @@ public interface XrayMapper {
         return methodContext.getTestNgResult().map(this::resultToXrayTest).orElse(null);
     }
 
+    /**
+     * Fields requested for Xray Tests found by {@link #queryTest(MethodContext)}.
+     * Add the fields you read in {@link #updateTest(XrayTestIssue, MethodContext)}.
+     * Return an empty collection to request all fields.
+     */
+    default Collection<Field> getTestFields() {
+        return Arrays.asList(Fields.SUMMARY, Fields.DESCRIPTION, Fields.LABELS, Fields.PROJECT);
+    }
+
     /**
      * If true, try to create or update a Xray Test
      * <p>
@@ -102,6 +115,22 @@ public interface XrayMapper {
                 .orElse(null);
     }
 
+    /**
+     * Fields requested for Xray Test Sets found by key or by {@link #queryTestSet(ClassContext)}.
+     * Because the Test Set is written back to Jira, all fields you modify in {@link #updateTestSet(XrayTestSetIssue, ClassContext)} are required.
+     * Return an empty collection to request all fields.
+     */
+    default Collection<Field> getTestSetFields() {
+        return Arrays.asList(
+                Fields.SUMMARY,
+                Fields.DESCRIPTION,
+                Fields.LABELS,
+                Fields.FIX_VERSIONS,
+                Fields.ASSIGNEE,
+                Fields.TEST_SET_TESTS
+        );
+    }
+
     /**
      * If true, try to create a Xray Test Set
      */
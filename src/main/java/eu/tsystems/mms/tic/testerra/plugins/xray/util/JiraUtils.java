@@ -22,18 +22,20 @@
 
 package eu.tsystems.mms.tic.testerra.plugins.xray.util;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.Lists;
+import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.WebResource;
 import com.sun.jersey.core.header.FormDataContentDisposition;
 import com.sun.jersey.multipart.FormDataBodyPart;
 import com.sun.jersey.multipart.FormDataMultiPart;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TransitionChainEvent;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.IssueType;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.KeyIn;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIdReference;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssuesSearchResult;
@@ -48,12 +50,18 @@ import org.apache.commons.lang3.StringUtils;
 import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -63,14 +71,15 @@ public class JiraUtils implements Loggable {
     private static final String ATTACHMENT_PATH = "api/2/attachment";
     private static final String ISSUE_PATH = "api/2/issue";
     private static final String SEARCH_PATH = "api/2/search";
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 100;
+    private static final int KEYS_PER_SEARCH = 100;
     private final WebResource webResource;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private int searchPageSize = DEFAULT_SEARCH_PAGE_SIZE;
+    private boolean searchPrefetchEnabled = false;
+    private TransitionPlanner transitionPlanner = new TransitionPlanner();
 
     public JiraUtils(WebResource webResource) {
         this.webResource = webResource;
-        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        //objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
     }
 
     /**
@@ -81,8 +90,20 @@ public class JiraUtils implements Loggable {
     }
 
     public JiraIssue getIssue(String issueKey) throws IOException {
+        return getIssue(issueKey, Collections.emptyList());
+    }
+
+    /**
+     * @param restrictedToFields Names of the fields to return. All fields are returned if empty.
+     */
+    public JiraIssue getIssue(String issueKey, Collection<String> restrictedToFields) throws IOException {
+        WebResource path = webResource.path(format("%s/%s", ISSUE_PATH, issueKey));
+        if (!restrictedToFields.isEmpty()) {
+            path = path.queryParam("fields", StringUtils.join(restrictedToFields, ','));
+        }
         try {
-            return getIssue(this.webResource, issueKey, Lists.newArrayList());
+            String result = path.get(String.class);
+            return JsonCodec.JIRA_ISSUE_READER.readValue(result);
         } catch (UniformInterfaceException e) {
             unwrapException(e);
         }
@@ -93,25 +114,23 @@ public class JiraUtils implements Loggable {
         return issueSupplier.apply(getIssue(issueKey));
     }
 
+    public <T extends JiraIdReference> T getIssue(String issueKey, Collection<String> restrictedToFields, Function<JiraIssue, T> issueSupplier) throws IOException {
+        return issueSupplier.apply(getIssue(issueKey, restrictedToFields));
+    }
+
     /**
-     * @deprecated Use {@link #getIssue(WebResource, String)} instead
+     * @deprecated Use {@link #getIssue(String, Collection)} instead
      */
     public static JiraIssue getIssue(
             final WebResource webResource,
             final String issueKey,
             final Collection<String> restrictedToFields
     ) throws IOException {
-        JiraUtils jiraUtils = new JiraUtils(webResource);
-        WebResource path = webResource.path(format("%s/%s", ISSUE_PATH, issueKey));
-        if (!restrictedToFields.isEmpty()) {
-            path = path.queryParam("fields", StringUtils.join(restrictedToFields, ','));
-        }
-        String result = path.get(String.class);
-        return jiraUtils.objectMapper.readValue(result, JiraIssue.class);
+        return new JiraUtils(webResource).getIssue(issueKey, restrictedToFields);
     }
 
     public void createOrUpdateIssue(JiraIssue issue) throws IOException {
-        final String string = objectMapper.writeValueAsString(issue);
+        final String string = JsonCodec.WRITER.writeValueAsString(issue);
 
         Optional<String> post;
         if (issue.hasKey()) {
@@ -121,7 +140,7 @@ public class JiraUtils implements Loggable {
         }
 
         if (post.isPresent()) {
-            JiraKeyReference jiraKeyReference = objectMapper.readValue(post.get(), JiraKeyReference.class);
+            JiraKeyReference jiraKeyReference = JsonCodec.JIRA_KEY_REFERENCE_READER.readValue(post.get());
 
             if (jiraKeyReference.hasKey()) {
                 issue.setKey(jiraKeyReference.getKey());
@@ -132,37 +151,65 @@ public class JiraUtils implements Loggable {
         }
     }
 
+    /**
+     * Serializes the entity directly into the request, see {@link JsonStreamingEntity}.
+     */
     public Optional<String> post(String apiPath, Object entity) throws IOException {
-        return post(apiPath, objectMapper.writeValueAsString(entity));
+        return postEntity(apiPath, new JsonStreamingEntity(JsonCodec.WRITER, entity));
+    }
+
+    /**
+     * @param objectWriter Pre-built writer of the entity type, see {@link JsonCodec}
+     */
+    protected Optional<String> post(String apiPath, Object entity, ObjectWriter objectWriter) throws IOException {
+        return postEntity(apiPath, new JsonStreamingEntity(objectWriter, entity));
     }
 
     public Optional<String> post(String apiPath, String body) throws IOException {
+        return postEntity(apiPath, body);
+    }
+
+    /**
+     * @param body Request entity as it is, which allows to inspect a {@link JsonStreamingEntity} after sending
+     */
+    Optional<String> postEntity(String apiPath, Object body) throws IOException {
         try {
             return Optional.ofNullable(prepare(apiPath, body).post(String.class));
         } catch (UniformInterfaceException e) {
             if (e.getResponse().getStatus() != 204) {
                 unwrapException(e);
             }
+        } catch (ClientHandlerException e) {
+            unwrapException(e);
         }
         return Optional.empty();
     }
 
+    /**
+     * Serializes the entity directly into the request, see {@link JsonStreamingEntity}.
+     */
     public Optional<String> put(String apiPath, Object entity) throws IOException {
-        return put(apiPath, objectMapper.writeValueAsString(entity));
+        return putEntity(apiPath, new JsonStreamingEntity(JsonCodec.WRITER, entity));
     }
 
     public Optional<String> put(String apiPath, String body) throws IOException {
+        return putEntity(apiPath, body);
+    }
+
+    private Optional<String> putEntity(String apiPath, Object body) throws IOException {
         try {
             return Optional.ofNullable(prepare(apiPath, body).put(String.class));
         } catch (UniformInterfaceException e) {
             if (e.getResponse().getStatus() != 204) {
                 unwrapException(e);
             }
+        } catch (ClientHandlerException e) {
+            unwrapException(e);
         }
         return Optional.empty();
     }
 
-    private WebResource.Builder prepare(String apiPath, String body) {
+    private WebResource.Builder prepare(String apiPath, Object body) {
         return webResource.path(apiPath)
                 .type(MediaType.APPLICATION_JSON_TYPE)
                 .entity(body);
@@ -174,47 +221,103 @@ public class JiraUtils implements Loggable {
     }
 
     /**
-     * @param webResource
-     * @param jqlQuery
-     * @return returns a Jira Issue containing no fields
-     * @deprecated Use {@link #searchIssues(JqlQuery)} instead
+     * Rethrows errors of writing a streamed entity as they were thrown before sending
      */
-    private Set<JiraIssue> searchIssues(final WebResource webResource, final String jqlQuery) {
-        return searchIssues(webResource, jqlQuery, Lists.newArrayList("\"\""));
+    private void unwrapException(ClientHandlerException e) throws IOException {
+        if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+        }
+        throw e;
     }
 
-    private Set<JiraIssue> searchIssues(final WebResource webResource, final String jqlQuery,
-                                        final Collection<String> fields) {
-        JiraUtils jiraUtils = new JiraUtils(webResource);
+    /**
+     * Returns a lazy stream of all issues matching the query.
+     * The pages are requested with {@link #getSearchPageSize()} issues while the stream is consumed.
+     * A page that cannot be loaded fails the stream by {@link UncheckedIOException}, so that partial results are never taken as complete.
+     *
+     * @param fields Names of the fields to return. All fields are returned if empty.
+     * @param validateQuery If false, Jira ignores unknown values like keys of deleted issues instead of failing
+     * @param prefetchEnabled If true, the next page is requested in background while the current one is consumed
+     */
+    private Stream<JiraIssue> searchIssues(final WebResource webResource, final String jqlQuery,
+                                           final Collection<String> fields, final boolean validateQuery, final boolean prefetchEnabled) {
         WebResource request = webResource.path(SEARCH_PATH)
-                .queryParam("validateQuery", "true")
+                .queryParam("validateQuery", Boolean.toString(validateQuery))
                 .queryParam("jql", jqlQuery);
 
         if (fields.size() > 0) {
-            request.queryParam("fields", StringUtils.join(fields, ','));
+            request = request.queryParam("fields", StringUtils.join(fields, ','));
         }
 
-        final JiraIssuesSearchResult jiraIssueSearchResult;
+        final WebResource searchRequest = request;
+        return PagedSearchIterator.stream(startAt -> searchPage(searchRequest, startAt), prefetchEnabled);
+    }
+
+    private JiraIssuesSearchResult searchPage(final WebResource searchRequest, final int startAt) {
         try {
-            final String result = request.get(String.class);
-            jiraIssueSearchResult = jiraUtils.objectMapper.readValue(result, JiraIssuesSearchResult.class);
-            return jiraIssueSearchResult.getIssues();
+            final String result = searchRequest
+                    .queryParam("startAt", Integer.toString(startAt))
+                    .queryParam("maxResults", Integer.toString(searchPageSize))
+                    .get(String.class);
+            return JsonCodec.JIRA_ISSUES_SEARCH_RESULT_READER.readValue(result);
         } catch (UniformInterfaceException e) {
-            log().error(e.getResponse().getEntity(String.class), e);
+            throw new UncheckedIOException(new IOException(e.getResponse().getEntity(String.class), e));
         } catch (IOException e) {
-            log().error("Unable to parse response", e);
+            throw new UncheckedIOException("Unable to parse response", e);
         }
-        return new HashSet<>();
     }
 
     public Stream<JiraIssue> searchIssues(JqlQuery jqlQuery) {
-        return searchIssues(getWebResource(), jqlQuery.createJql()).stream();
+        return searchIssues(jqlQuery, Collections.emptyList());
+    }
+
+    /**
+     * Streams the found issues. A stream that is not consumed completely should be closed,
+     * which cancels the prefetch of the next page, see {@link #setSearchPrefetchEnabled(boolean)}.
+     *
+     * @param fields Names of the fields to return. All fields are returned if empty.
+     */
+    public Stream<JiraIssue> searchIssues(JqlQuery jqlQuery, Collection<String> fields) {
+        return searchIssues(getWebResource(), jqlQuery.createJql(), fields, true, searchPrefetchEnabled);
+    }
+
+    /**
+     * Returns the first found issue without prefetching the next page, which would be requested in vain.
+     *
+     * @param fields Names of the fields to return. All fields are returned if empty.
+     */
+    public <T extends JiraIdReference> Optional<T> searchFirstIssue(JqlQuery jqlQuery, Collection<String> fields, Function<JiraIssue, T> issueSupplier) {
+        return searchIssues(getWebResource(), jqlQuery.createJql(), fields, true, false)
+                .findFirst()
+                .map(issueSupplier);
+    }
+
+    /**
+     * Returns the issues of the given keys by one {@code key in (...)} search per {@value #KEYS_PER_SEARCH} keys.
+     * Keys of issues that don't exist are ignored.
+     *
+     * @param fields Names of the fields to return. All fields are returned if empty.
+     */
+    public Stream<JiraIssue> searchIssuesByKeys(Collection<String> issueKeys, Collection<String> fields) {
+        final List<String> distinctKeys = new ArrayList<>(new LinkedHashSet<>(issueKeys));
+        return IntStream.range(0, (distinctKeys.size() + KEYS_PER_SEARCH - 1) / KEYS_PER_SEARCH)
+                .mapToObj(chunk -> new ArrayList<>(distinctKeys.subList(chunk * KEYS_PER_SEARCH, Math.min((chunk + 1) * KEYS_PER_SEARCH, distinctKeys.size()))))
+                .flatMap(chunk -> {
+                    final JqlQuery query = JqlQuery.create()
+                            .addCondition(new KeyIn(chunk))
+                            .build();
+                    return searchIssues(getWebResource(), query.createJql(), fields, false, searchPrefetchEnabled);
+                });
     }
 
     public <T extends JiraIdReference> Stream<T> searchIssues(JqlQuery jqlQuery, Function<JiraIssue, T> issueSupplier) {
         return searchIssues(jqlQuery).map(issueSupplier);
     }
 
+    public <T extends JiraIdReference> Stream<T> searchIssues(JqlQuery jqlQuery, Collection<String> fields, Function<JiraIssue, T> issueSupplier) {
+        return searchIssues(jqlQuery, fields).map(issueSupplier);
+    }
+
     /**
      * @deprecated Use {@link #getAvailableTransitions(String)} instead
      */
@@ -226,7 +329,7 @@ public class JiraUtils implements Loggable {
 
     public Set<JiraTransition> getAvailableTransitions(String issueKey) throws IOException {
         final String result = webResource.path(format("%s/%s/transitions", ISSUE_PATH, issueKey)).get(String.class);
-        JiraTransitionsSearchResult jiraTransitionsSearchResult = objectMapper.readValue(result, JiraTransitionsSearchResult.class);
+        JiraTransitionsSearchResult jiraTransitionsSearchResult = JsonCodec.JIRA_TRANSITIONS_READER.readValue(result);
         return jiraTransitionsSearchResult.getTransitions();
     }
 
@@ -240,22 +343,28 @@ public class JiraUtils implements Loggable {
     }
 
     public void performTransition(String issueKey, JiraTransition jiraTransition) throws IOException {
-        ObjectMapper objectMapper = this.objectMapper.copy();
-        objectMapper.configure(SerializationFeature.WRAP_ROOT_VALUE, true);
-        post(format("%s/%s/transitions", ISSUE_PATH, issueKey), objectMapper.writeValueAsString(jiraTransition));
+        post(format("%s/%s/transitions", ISSUE_PATH, issueKey), JsonCodec.JIRA_TRANSITION_WRITER.writeValueAsString(jiraTransition));
     }
 
+    /**
+     * Performs one transition to a status of each given category.
+     * The available transitions are requested only for statuses not learned by the {@link TransitionPlanner} yet.
+     */
     public void performTransitionChain(String issueKey, LinkedList<JiraStatusCategory> statuslist) {
         if (statuslist == null || statuslist.size() == 0) {
             log().warn("Cannot perform transitions on {}: Status list is empty.", issueKey);
             return;
         }
+        final TransitionChainEvent event = createTransitionChainEvent(issueKey, statuslist);
         try {
+            final JiraIssue issue = learnCurrentStatus(issueKey);
+            final String scope = getTransitionScope(issue);
+            JiraStatus currentStatus = issue.getStatus();
             for (JiraStatusCategory elem : statuslist) {
-                Set<JiraTransition> transitions = this.getAvailableTransitions(issueKey);
-                Optional<JiraTransition> transitionByStatusCategory = this.getTransitionByStatusCategory(transitions, elem);
+                Optional<JiraTransition> transitionByStatusCategory = this.performTransitionTo(issueKey, scope, currentStatus, elem);
                 if (transitionByStatusCategory.isPresent()) {
-                    this.performTransition(issueKey, transitionByStatusCategory.get());
+                    currentStatus = transitionByStatusCategory.get().getTo();
+                    event.transitionCount++;
                 } else {
                     log().warn("Cannot continue performing transition, because {} is not available.", elem.getName());
                 }
@@ -264,7 +373,127 @@ public class JiraUtils implements Loggable {
         } catch (Exception e) {
             throw new RuntimeException("Cannot perform transition at test execution " + issueKey, e);
 //            log().error("Cannot perform transition at test execution {}", issueKey, e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    /**
+     * Performs the shortest known path of transitions to a status of the given category.
+     * The path is planned by the {@link TransitionPlanner}, which learns the available transitions of every requested status.
+     *
+     * @return TRUE if the issue has reached a status of the category
+     */
+    public boolean performTransitionsTo(String issueKey, JiraStatusCategory statusCategory) throws IOException {
+        final TransitionChainEvent event = createTransitionChainEvent(issueKey, Collections.singletonList(statusCategory));
+        try {
+            final JiraIssue issue = learnCurrentStatus(issueKey);
+            final String scope = getTransitionScope(issue);
+            final Optional<List<JiraTransition>> path = transitionPlanner.findPath(scope, issue.getStatus(), statusCategory);
+            if (!path.isPresent()) {
+                log().warn(String.format("Cannot find transitions of %s to status category %s", issueKey, statusCategory.getKey()));
+                return false;
+            }
+            for (JiraTransition transition : path.get()) {
+                try {
+                    performTransition(issueKey, transition);
+                    event.transitionCount++;
+                } catch (IOException e) {
+                    // The workflow may have changed since the transitions were learned
+                    transitionPlanner.forget(scope, issue.getStatus());
+                    throw e;
+                }
+            }
+            return true;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private TransitionChainEvent createTransitionChainEvent(String issueKey, List<JiraStatusCategory> statusCategories) {
+        final TransitionChainEvent event = new TransitionChainEvent();
+        event.begin();
+        event.issueKey = issueKey;
+        if (event.isEnabled()) {
+            event.statusCategories = statusCategories.stream().map(JiraStatusCategory::getKey).collect(Collectors.joining(","));
+        }
+        return event;
+    }
+
+    /**
+     * Performs a transition from the given status to a status of the given category.
+     * Learned transitions which are not available anymore are requested again.
+     *
+     * @return The performed transition
+     */
+    private Optional<JiraTransition> performTransitionTo(String issueKey, String scope, JiraStatus status, JiraStatusCategory statusCategory) throws IOException {
+        final boolean learned = transitionPlanner.isLearned(scope, status);
+        final Optional<JiraTransition> transition = getTransitionByStatusCategory(new LinkedHashSet<>(getTransitions(issueKey, scope, status)), statusCategory);
+        try {
+            if (transition.isPresent()) {
+                performTransition(issueKey, transition.get());
+                return transition;
+            }
+        } catch (IOException e) {
+            if (!learned) {
+                throw e;
+            }
+        }
+        if (learned) {
+            // The workflow may have changed since the transitions were learned
+            transitionPlanner.forget(scope, status);
+            return performTransitionTo(issueKey, scope, status, statusCategory);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the learned transitions of the status or requests and learns the available ones
+     */
+    private Collection<JiraTransition> getTransitions(String issueKey, String scope, JiraStatus status) throws IOException {
+        final Optional<List<JiraTransition>> learnedTransitions = transitionPlanner.getTransitions(scope, status);
+        if (learnedTransitions.isPresent()) {
+            return learnedTransitions.get();
+        }
+        final Set<JiraTransition> availableTransitions = getAvailableTransitions(issueKey);
+        transitionPlanner.learn(scope, status, availableTransitions);
+        return availableTransitions;
+    }
+
+    /**
+     * Requests the status of the issue together with its available transitions and learns them
+     */
+    private JiraIssue learnCurrentStatus(String issueKey) throws IOException {
+        try {
+            final String result = webResource.path(format("%s/%s", ISSUE_PATH, issueKey))
+                    .queryParam("fields", format("%s,%s", Fields.STATUS.getFieldName(), Fields.ISSUE_TYPE.getFieldName()))
+                    .queryParam("expand", "transitions")
+                    .get(String.class);
+            final JiraIssue issue = JsonCodec.JIRA_ISSUE_READER.readValue(result);
+            final JiraTransitionsSearchResult jiraTransitionsSearchResult = JsonCodec.JIRA_TRANSITIONS_READER.readValue(result);
+            if (jiraTransitionsSearchResult.getTransitions() != null) {
+                transitionPlanner.learn(getTransitionScope(issue), issue.getStatus(), jiraTransitionsSearchResult.getTransitions());
+            }
+            return issue;
+        } catch (UniformInterfaceException e) {
+            unwrapException(e);
         }
+        return new JiraIssue(issueKey);
+    }
+
+    private String getTransitionScope(JiraIssue issue) {
+        return TransitionPlanner.createScope(StringUtils.substringBefore(issue.getKey(), "-"), issue.getIssueType().getName());
+    }
+
+    public TransitionPlanner getTransitionPlanner() {
+        return transitionPlanner;
+    }
+
+    /**
+     * @param transitionPlanner Planner to share learned workflows between instances
+     */
+    public void setTransitionPlanner(TransitionPlanner transitionPlanner) {
+        this.transitionPlanner = transitionPlanner;
     }
 
     public Optional<JiraTransition> getTransitionByStatusCategory(Set<JiraTransition> jiraTransitions, JiraStatusCategory statusCategory) {
@@ -334,18 +563,43 @@ public class JiraUtils implements Loggable {
     }
 
     public void deleteAllAttachments(final String issueKey) throws IOException {
-        final JiraIssue issue = getIssue(this.webResource, issueKey, Lists.newArrayList("attachment"));
+        final JiraIssue issue = getIssue(issueKey, Lists.newArrayList(Fields.ATTACHMENT.getFieldName()));
         issue.getAttachments().forEach(issueRef -> {
             webResource.path(format("%s/%s", ATTACHMENT_PATH, issueRef.getId()))
                     .delete();
         });
     }
 
+    public int getSearchPageSize() {
+        return searchPageSize;
+    }
+
+    /**
+     * Sets the number of issues requested per search page. Jira may limit this by its own maximum.
+     */
+    public void setSearchPageSize(int searchPageSize) {
+        this.searchPageSize = searchPageSize;
+    }
+
+    public boolean isSearchPrefetchEnabled() {
+        return searchPrefetchEnabled;
+    }
+
+    /**
+     * If true, the next search page is requested in background while the current one is consumed.
+     */
+    public void setSearchPrefetchEnabled(boolean searchPrefetchEnabled) {
+        this.searchPrefetchEnabled = searchPrefetchEnabled;
+    }
+
     protected WebResource getWebResource() {
         return webResource;
     }
 
+    /**
+     * @return The mapper shared by all instances, see {@link JsonCodec#getObjectMapper()}
+     */
     protected ObjectMapper getObjectMapper() {
-        return objectMapper;
+        return JsonCodec.getObjectMapper();
     }
 }
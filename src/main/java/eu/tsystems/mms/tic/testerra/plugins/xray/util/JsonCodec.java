@@ -0,0 +1,90 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssuesSearchResult;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraKeyReference;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraTransition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraTransitionsSearchResult;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+
+/**
+ * Shared JSON configuration of the Jira and Xray API.
+ * <p>
+ * Building an {@link ObjectMapper} and its serializers is expensive, so all API clients share one mapper
+ * and the pre-built readers and writers of the frequently exchanged entities.
+ * Readers and writers are immutable and thread-safe, the mapper must not be reconfigured after creation.
+ */
+public final class JsonCodec {
+
+    private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+
+    public static final ObjectReader JIRA_ISSUE_READER = OBJECT_MAPPER.reader(JiraIssue.class);
+    public static final ObjectReader JIRA_KEY_REFERENCE_READER = OBJECT_MAPPER.reader(JiraKeyReference.class);
+    public static final ObjectReader JIRA_ISSUES_SEARCH_RESULT_READER = OBJECT_MAPPER.reader(JiraIssuesSearchResult.class);
+    public static final ObjectReader JIRA_TRANSITIONS_READER = OBJECT_MAPPER.reader(JiraTransitionsSearchResult.class);
+    public static final ObjectReader TEST_EXECUTION_IMPORT_RESULT_READER = OBJECT_MAPPER.reader(XrayTestExecutionImport.Result.class);
+    public static final ObjectReader TEST_RUNS_READER = OBJECT_MAPPER.reader(XrayTestExecutionImport.TestRun[].class);
+    public static final ObjectReader TEST_EXECUTION_IMPORT_READER = OBJECT_MAPPER.reader(XrayTestExecutionImport.class);
+
+    public static final ObjectWriter TEST_EXECUTION_IMPORT_WRITER = OBJECT_MAPPER.writerWithType(XrayTestExecutionImport.class);
+    /**
+     * Writes a transition wrapped by its root name, like <code>{"transition": {"id": "1"}}</code>
+     */
+    public static final ObjectWriter JIRA_TRANSITION_WRITER = OBJECT_MAPPER.writerWithType(JiraTransition.class).with(SerializationFeature.WRAP_ROOT_VALUE);
+    public static final ObjectWriter WRITER = OBJECT_MAPPER.writer();
+
+    private JsonCodec() {
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return objectMapper;
+    }
+
+    /**
+     * @return The shared mapper, which has to be copied before changing its configuration
+     */
+    public static ObjectMapper getObjectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * @return A copy of the shared mapper with its own serializers, which may be configured by mixins
+     */
+    public static ObjectMapper copyObjectMapper() {
+        final ObjectMapper objectMapper = OBJECT_MAPPER.copy();
+        // A copy shares the cached serializers, which would ignore the mixins
+        objectMapper.setSerializerProvider(new DefaultSerializerProvider.Impl());
+        return objectMapper;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Request entity which serializes the given object directly into the request output stream,
+ * instead of materializing the whole JSON document in memory.
+ * The entity can be written multiple times, e.g. on retries.
+ * The size of the last written document is available by {@link #getWrittenBytes()}.
+ */
+final class JsonStreamingEntity implements StreamingOutput {
+
+    private final ObjectWriter objectWriter;
+    private final Object entity;
+    private volatile long writtenBytes = 0;
+
+    JsonStreamingEntity(ObjectWriter objectWriter, Object entity) {
+        this.objectWriter = objectWriter;
+        this.entity = entity;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException {
+        final CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+        final JsonGenerator generator = objectWriter.getFactory().createGenerator(countingOutputStream, JsonEncoding.UTF8);
+        // The output stream is closed by Jersey
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        objectWriter.writeValue(generator, entity);
+        generator.flush();
+        writtenBytes = countingOutputStream.getByteCount();
+    }
+
+    /**
+     * @return Number of bytes of the last written document, 0 if it was not written yet
+     */
+    long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * Serializes the entity into memory, which is intended for request logging only.
+     */
+    @Override
+    public String toString() {
+        try {
+            return objectWriter.writeValueAsString(entity);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(entity);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.util;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssuesSearchResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the issues of a Jira search page by page.
+ * A page is requested only when the previous one has been consumed.
+ * If prefetching is enabled, the next page is requested in background while the current page is consumed.
+ * A page that cannot be loaded fails the iteration instead of ending it, because the result would be incomplete.
+ */
+final class PagedSearchIterator implements Iterator<JiraIssue> {
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "Xray-Search-Prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Returns the search result page starting at the given index or throws an {@link UncheckedIOException} if the page could not be loaded
+     */
+    private final IntFunction<JiraIssuesSearchResult> pageLoader;
+    private final boolean prefetchEnabled;
+    private Iterator<JiraIssue> currentPage = Collections.emptyIterator();
+    private CompletableFuture<JiraIssuesSearchResult> nextPage;
+    private int nextStartAt = 0;
+    private boolean lastPage = false;
+
+    PagedSearchIterator(IntFunction<JiraIssuesSearchResult> pageLoader, boolean prefetchEnabled) {
+        this.pageLoader = pageLoader;
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    static Stream<JiraIssue> stream(IntFunction<JiraIssuesSearchResult> pageLoader, boolean prefetchEnabled) {
+        final PagedSearchIterator iterator = new PagedSearchIterator(pageLoader, prefetchEnabled);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::cancelPrefetch);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!currentPage.hasNext()) {
+            if (lastPage) {
+                return false;
+            }
+            loadNextPage();
+        }
+        return true;
+    }
+
+    @Override
+    public JiraIssue next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    private void loadNextPage() {
+        final JiraIssuesSearchResult page;
+        if (nextPage != null) {
+            try {
+                page = nextPage.join();
+            } catch (CompletionException e) {
+                // Rethrows the failure of the prefetching thread like a direct request
+                lastPage = true;
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            } finally {
+                nextPage = null;
+            }
+        } else {
+            try {
+                page = pageLoader.apply(nextStartAt);
+            } catch (RuntimeException e) {
+                lastPage = true;
+                throw e;
+            }
+        }
+
+        if (page == null) {
+            lastPage = true;
+            throw new UncheckedIOException(new IOException(String.format("Unable to load search page starting at %d", nextStartAt)));
+        }
+        if (page.getIssues() == null || page.getIssues().isEmpty()) {
+            lastPage = true;
+            currentPage = Collections.emptyIterator();
+            return;
+        }
+
+        currentPage = page.getIssues().iterator();
+        nextStartAt += page.getIssues().size();
+
+        if (nextStartAt >= page.getTotal()) {
+            lastPage = true;
+        } else if (prefetchEnabled) {
+            final int startAt = nextStartAt;
+            nextPage = CompletableFuture.supplyAsync(() -> pageLoader.apply(startAt), PREFETCH_EXECUTOR);
+        }
+    }
+
+    private void cancelPrefetch() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        lastPage = true;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.DefaultSerializerProvider;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits a {@link XrayTestExecutionImport} into several imports of the same Test Execution,
+ * so that the estimated size of each import stays below a byte budget.
+ * <p>
+ * The size of a test run is estimated by serializing it without evidences
+ * and adding the base64 encoded size of the evidences, which doesn't require reading evidence files.
+ * A single test run exceeding the budget is imported on its own.
+ */
+public final class TestExecutionImportChunker implements Loggable {
+
+    /**
+     * Size of an evidence object in JSON excluding the lengths of its values
+     */
+    private static final int EVIDENCE_OVERHEAD = "{\"data\":\"\",\"filename\":\"\",\"contentType\":\"\"},".length();
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+
+    /**
+     * @param objectMapper The mapper used for the import, which is copied
+     * @param maxBytes Maximum size of a single import
+     */
+    public TestExecutionImportChunker(ObjectMapper objectMapper, long maxBytes) {
+        this.objectMapper = objectMapper.copy();
+        // A copy shares the cached serializers, which would ignore the mixins
+        this.objectMapper.setSerializerProvider(new DefaultSerializerProvider.Impl());
+        this.objectMapper.addMixInAnnotations(XrayTestExecutionImport.TestRun.class, WithoutEvidences.class);
+        this.objectMapper.addMixInAnnotations(XrayTestExecutionImport.TestRun.Step.class, WithoutEvidences.class);
+        this.maxBytes = maxBytes;
+    }
+
+    public List<XrayTestExecutionImport> split(XrayTestExecutionImport testExecutionImport) throws IOException {
+        final long envelopeSize = getSerializedSize(testExecutionImport.copyWithTests(new ArrayList<>()));
+        final long budget = maxBytes - envelopeSize;
+
+        final List<XrayTestExecutionImport> chunks = new ArrayList<>();
+        List<XrayTestExecutionImport.TestRun> currentChunk = new ArrayList<>();
+        long currentChunkSize = 0;
+
+        for (XrayTestExecutionImport.TestRun testRun : testExecutionImport.getTests()) {
+            // Including the separating comma
+            final long testRunSize = estimateSize(testRun) + 1;
+            if (testRunSize > budget) {
+                log().warn(String.format("Test run of %s exceeds the import size limit of %d bytes with approximately %d bytes", testRun.getTestKey(), maxBytes, testRunSize + envelopeSize));
+            }
+            if (!currentChunk.isEmpty() && currentChunkSize + testRunSize > budget) {
+                chunks.add(testExecutionImport.copyWithTests(currentChunk));
+                currentChunk = new ArrayList<>();
+                currentChunkSize = 0;
+            }
+            currentChunk.add(testRun);
+            currentChunkSize += testRunSize;
+        }
+
+        if (!currentChunk.isEmpty() || chunks.isEmpty()) {
+            chunks.add(testExecutionImport.copyWithTests(currentChunk));
+        }
+        return chunks;
+    }
+
+    /**
+     * @return The estimated size of the test run in JSON, including its evidences
+     */
+    public long estimateSize(XrayTestExecutionImport.TestRun testRun) throws IOException {
+        long size = getSerializedSize(testRun);
+        size += estimateSize(testRun.getEvidences());
+        if (testRun.getSteps() != null) {
+            for (XrayTestExecutionImport.TestRun.Step step : testRun.getSteps()) {
+                size += estimateSize(step.getEvidences());
+            }
+        }
+        return size;
+    }
+
+    private long estimateSize(Collection<XrayTestExecutionImport.TestRun.Evidence> evidences) {
+        if (evidences == null || evidences.isEmpty()) {
+            return 0;
+        }
+        // The evidences array
+        long size = "\"evidences\":[],".length();
+        for (XrayTestExecutionImport.TestRun.Evidence evidence : evidences) {
+            size += EVIDENCE_OVERHEAD;
+            size += evidence.getFile()
+                    .map(file -> getBase64Length(file.length()))
+                    .orElseGet(() -> evidence.getData() != null ? evidence.getData().length() : 0L);
+            size += evidence.getFilename() != null ? evidence.getFilename().length() : 0;
+            size += evidence.getContentType() != null ? evidence.getContentType().length() : 0;
+        }
+        return size;
+    }
+
+    private long getBase64Length(long length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    private long getSerializedSize(Object object) throws IOException {
+        final CountingOutputStream outputStream = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        objectMapper.writeValue(outputStream, object);
+        return outputStream.getByteCount();
+    }
+
+    @JsonIgnoreProperties(value = {"evidences"}, ignoreUnknown = true)
+    private abstract static class WithoutEvidences {
+    }
+}
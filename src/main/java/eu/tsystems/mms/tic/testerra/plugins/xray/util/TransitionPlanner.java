@@ -0,0 +1,289 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatus;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraTransition;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Learns the workflow graph of issues from the transitions available in their statuses
+ * and plans transitions without requesting the available ones at every step.
+ * <p>
+ * The graph is scoped by project and issue type, because both define the workflow of an issue.
+ * Statuses are identified by their id.
+ */
+public class TransitionPlanner implements Loggable {
+
+    private final ObjectMapper objectMapper = JsonCodec.getObjectMapper();
+    /**
+     * Transitions by status id by scope
+     */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, List<Edge>>> graphs = new ConcurrentHashMap<>();
+
+    public static String createScope(String projectKey, String issueType) {
+        return String.format("%s|%s", projectKey, issueType);
+    }
+
+    /**
+     * Stores the transitions available in the given status
+     */
+    public void learn(String scope, JiraStatus status, Collection<JiraTransition> transitions) {
+        final String statusId = getStatusId(status);
+        if (statusId == null) {
+            return;
+        }
+        final List<Edge> edges = transitions.stream()
+                .filter(transition -> transition.getTo() != null && getStatusId(transition.getTo()) != null)
+                .map(transition -> new Edge(statusId, transition))
+                .collect(Collectors.toList());
+        graphs.computeIfAbsent(scope, key -> new ConcurrentHashMap<>()).put(statusId, Collections.unmodifiableList(edges));
+    }
+
+    /**
+     * Drops the transitions of the given status, for example when the workflow has changed
+     */
+    public void forget(String scope, JiraStatus status) {
+        final Map<String, List<Edge>> graph = graphs.get(scope);
+        final String statusId = getStatusId(status);
+        if (graph != null && statusId != null) {
+            graph.remove(statusId);
+        }
+    }
+
+    public boolean isLearned(String scope, JiraStatus status) {
+        return getEdges(scope, getStatusId(status)).isPresent();
+    }
+
+    /**
+     * @return The transitions available in the given status, if they have been learned
+     */
+    public Optional<List<JiraTransition>> getTransitions(String scope, JiraStatus status) {
+        return getEdges(scope, getStatusId(status))
+                .map(edges -> edges.stream().map(Edge::toTransition).collect(Collectors.toList()));
+    }
+
+    /**
+     * Finds the shortest path of transitions from the given status to a status of the given category by the learned graph.
+     *
+     * @return An empty list if the status already has the category, or an empty Optional if no path is known
+     */
+    public Optional<List<JiraTransition>> findPath(String scope, JiraStatus from, JiraStatusCategory target) {
+        final String fromId = getStatusId(from);
+        if (fromId == null) {
+            return Optional.empty();
+        }
+        if (from.getStatusCategory() != null && hasCategory(from.getStatusCategory().getKey(), target)) {
+            return Optional.of(Collections.emptyList());
+        }
+
+        // Breadth first search, the edge leading to each visited status
+        final Map<String, Edge> predecessors = new HashMap<>();
+        final Deque<String> queue = new ArrayDeque<>();
+        predecessors.put(fromId, null);
+        queue.add(fromId);
+        while (!queue.isEmpty()) {
+            final String statusId = queue.poll();
+            final List<Edge> edges = getEdges(scope, statusId).orElse(Collections.emptyList());
+            for (Edge edge : edges) {
+                if (predecessors.containsKey(edge.getToStatusId())) {
+                    continue;
+                }
+                predecessors.put(edge.getToStatusId(), edge);
+                if (hasCategory(edge.getToStatusCategory(), target)) {
+                    return Optional.of(createPath(predecessors, fromId, edge));
+                }
+                queue.add(edge.getToStatusId());
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<JiraTransition> createPath(Map<String, Edge> predecessors, String fromId, Edge last) {
+        final LinkedList<JiraTransition> path = new LinkedList<>();
+        Edge edge = last;
+        while (edge != null) {
+            path.addFirst(edge.toTransition());
+            edge = edge.getFromStatusId().equals(fromId) ? null : predecessors.get(edge.getFromStatusId());
+        }
+        return path;
+    }
+
+    private boolean hasCategory(String statusCategoryKey, JiraStatusCategory target) {
+        return statusCategoryKey != null && statusCategoryKey.equals(target.getKey());
+    }
+
+    private Optional<List<Edge>> getEdges(String scope, String statusId) {
+        final Map<String, List<Edge>> graph = graphs.get(scope);
+        if (graph == null || statusId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(graph.get(statusId));
+    }
+
+    private static String getStatusId(JiraStatus status) {
+        if (status == null) {
+            return null;
+        }
+        return status.getId() != null ? status.getId() : status.getName();
+    }
+
+    /**
+     * Reads the learned graphs from a file written by {@link #save(File)}
+     */
+    public void load(File file) {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            final Map<String, Map<String, List<Edge>>> loadedGraphs = objectMapper.readValue(file, new TypeReference<Map<String, Map<String, List<Edge>>>>() {});
+            loadedGraphs.forEach((scope, graph) -> {
+                final ConcurrentHashMap<String, List<Edge>> scopedGraph = graphs.computeIfAbsent(scope, key -> new ConcurrentHashMap<>());
+                graph.forEach((statusId, edges) -> scopedGraph.put(statusId, Collections.unmodifiableList(new ArrayList<>(edges))));
+            });
+            log().info(String.format("Loaded transitions of %d workflows from %s", graphs.size(), file));
+        } catch (IOException e) {
+            log().warn(String.format("Unable to read transition cache %s", file), e);
+        }
+    }
+
+    /**
+     * Writes the learned graphs by replacing the existing file
+     */
+    public void save(File file) {
+        try {
+            final File directory = file.getAbsoluteFile().getParentFile();
+            Files.createDirectories(directory.toPath());
+            final File tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+            objectMapper.writeValue(tempFile, graphs);
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log().warn(String.format("Unable to write transition cache %s", file), e);
+        }
+    }
+
+    /**
+     * A transition reduced to the properties needed for planning
+     */
+    public static class Edge {
+        private String id;
+        private String name;
+        private String fromStatusId;
+        private String toStatusId;
+        private String toStatusName;
+        private String toStatusCategory;
+
+        public Edge() {
+        }
+
+        private Edge(String fromStatusId, JiraTransition transition) {
+            this.id = transition.getId();
+            this.fromStatusId = fromStatusId;
+            this.name = transition.getName();
+            this.toStatusId = getStatusId(transition.getTo());
+            this.toStatusName = transition.getTo().getName();
+            if (transition.getTo().getStatusCategory() != null) {
+                this.toStatusCategory = transition.getTo().getStatusCategory().getKey();
+            }
+        }
+
+        JiraTransition toTransition() {
+            final JiraTransition transition = new JiraTransition(id);
+            transition.setName(name);
+            final JiraStatus to = new JiraStatus(toStatusName);
+            to.setId(toStatusId);
+            if (toStatusCategory != null) {
+                to.setStatusCategory(new JiraStatusCategory(toStatusCategory));
+            }
+            transition.setTo(to);
+            return transition;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getFromStatusId() {
+            return fromStatusId;
+        }
+
+        public void setFromStatusId(String fromStatusId) {
+            this.fromStatusId = fromStatusId;
+        }
+
+        public String getToStatusId() {
+            return toStatusId;
+        }
+
+        public void setToStatusId(String toStatusId) {
+            this.toStatusId = toStatusId;
+        }
+
+        public String getToStatusName() {
+            return toStatusName;
+        }
+
+        public void setToStatusName(String toStatusName) {
+            this.toStatusName = toStatusName;
+        }
+
+        public String getToStatusCategory() {
+            return toStatusCategory;
+        }
+
+        public void setToStatusCategory(String toStatusCategory) {
+            this.toStatusCategory = toStatusCategory;
+        }
+    }
+}
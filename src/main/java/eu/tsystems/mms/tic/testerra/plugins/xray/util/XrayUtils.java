@@ -23,45 +23,128 @@
 package eu.tsystems.mms.tic.testerra.plugins.xray.util;
 
 import com.sun.jersey.api.client.WebResource;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestExecutionImportEvent;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public final class XrayUtils extends JiraUtils {
 
     private static final String IMPORT_EXECUTION_PATH = "raven/1.0/import/execution";
     private static final String EXECUTION_RESULT_PATH = "raven/1.0/execution/result";
+    private static final String TEST_SET_TESTS_PATH = "raven/1.0/api/testset/%s/test";
 
     public static final String PREFIX_NEW_ISSUE = "_NEW_";
 
+    private long importMaxBytes = 0;
+    private TestExecutionImportChunker importChunker;
+
     public XrayUtils(WebResource webResource) {
         super(webResource);
     }
 
     public void importTestExecution(XrayTestExecutionImport testExecutionImport) throws IOException {
+        importTestExecution(testExecutionImport, testRuns -> {});
+    }
+
+    /**
+     * Imports the test runs, split into chunks if {@link #setImportMaxBytes(long)} is set.
+     * When a chunk fails, the Test Execution key of the previous chunks remains set on the import.
+     *
+     * @param importedTestRunsConsumer Receives the test runs of each successfully imported chunk
+     */
+    public void importTestExecution(
+            XrayTestExecutionImport testExecutionImport,
+            Consumer<Collection<XrayTestExecutionImport.TestRun>> importedTestRunsConsumer
+    ) throws IOException {
         testExecutionImport.getTests().forEach(testRun -> {
             if (testRun.getTestKey() != null && testRun.getTestKey().contains(PREFIX_NEW_ISSUE)) {
                 testRun.setTestKey(null);
             }
         });
-        Optional<String> post = post(IMPORT_EXECUTION_PATH, testExecutionImport);
-        if (post.isPresent()) {
-            XrayTestExecutionImport.Result xrayTestExecutionResult = getObjectMapper().readValue(post.get(), XrayTestExecutionImport.Result.class);
-            testExecutionImport.setTestExecutionKey(xrayTestExecutionResult.getTestExecIssue().getKey());
-            testExecutionImport.setResultTestIssueImport(xrayTestExecutionResult.getTestIssues());
+
+        if (importChunker == null) {
+            importChunk(testExecutionImport, testExecutionImport);
+            importedTestRunsConsumer.accept(testExecutionImport.getTests());
+            return;
+        }
+
+        final List<XrayTestExecutionImport> chunks = importChunker.split(testExecutionImport);
+        if (chunks.size() > 1) {
+            log().info(String.format("Split import of %d test runs into %d chunks", testExecutionImport.getTests().size(), chunks.size()));
+        }
+        for (XrayTestExecutionImport chunk : chunks) {
+            // The first chunk may create the Test Execution
+            chunk.setTestExecutionKey(testExecutionImport.getTestExecutionKey());
+            importChunk(chunk, testExecutionImport);
+            importedTestRunsConsumer.accept(chunk.getTests());
+        }
+    }
+
+    /**
+     * Imports the chunk and applies the result to the whole import
+     */
+    private void importChunk(XrayTestExecutionImport chunk, XrayTestExecutionImport testExecutionImport) throws IOException {
+        final TestExecutionImportEvent event = new TestExecutionImportEvent();
+        event.begin();
+        event.created = chunk.getTestExecutionKey() == null;
+        event.testRunCount = chunk.getTests() == null ? 0 : chunk.getTests().size();
+
+        final JsonStreamingEntity entity = new JsonStreamingEntity(JsonCodec.TEST_EXECUTION_IMPORT_WRITER, chunk);
+        try {
+            Optional<String> post = postEntity(IMPORT_EXECUTION_PATH, entity);
+            if (post.isPresent()) {
+                XrayTestExecutionImport.Result xrayTestExecutionResult = JsonCodec.TEST_EXECUTION_IMPORT_RESULT_READER.readValue(post.get());
+                testExecutionImport.setTestExecutionKey(xrayTestExecutionResult.getTestExecIssue().getKey());
+                // Keeps the results of the previous chunks, when this chunk has none
+                if (xrayTestExecutionResult.getTestIssues() != null) {
+                    if (testExecutionImport.getResultTestIssueImport() == null) {
+                        testExecutionImport.setResultTestIssueImport(xrayTestExecutionResult.getTestIssues());
+                    } else {
+                        testExecutionImport.getResultTestIssueImport().merge(xrayTestExecutionResult.getTestIssues());
+                    }
+                }
+            }
+        } finally {
+            event.testExecutionKey = testExecutionImport.getTestExecutionKey();
+            event.payloadBytes = entity.getWrittenBytes();
+            event.commit();
         }
     }
 
+    public long getImportMaxBytes() {
+        return importMaxBytes;
+    }
+
+    /**
+     * @param importMaxBytes Maximum estimated size of a single import request, larger imports are split. 0 disables splitting.
+     */
+    public void setImportMaxBytes(long importMaxBytes) {
+        this.importMaxBytes = importMaxBytes;
+        this.importChunker = importMaxBytes > 0 ? new TestExecutionImportChunker(getObjectMapper(), importMaxBytes) : null;
+    }
+
+    /**
+     * Adds Tests to an existing Test Set without sending the Tests it already contains
+     */
+    public void addTestsToTestSet(String testSetKey, Collection<String> testKeys) throws IOException {
+        post(String.format(TEST_SET_TESTS_PATH, testSetKey), Collections.singletonMap("add", testKeys));
+    }
+
     public Set<XrayTestExecutionImport.TestRun> getTestRunsByTestExecutionKey(String issueKey) throws IOException {
         String jsonResponse = getWebResource()
                 .path(EXECUTION_RESULT_PATH)
                 .queryParam("testExecKey", issueKey)
                 .get(String.class);
-        XrayTestExecutionImport.TestRun[] testRuns = getObjectMapper().readValue(jsonResponse, XrayTestExecutionImport.TestRun[].class);
+        XrayTestExecutionImport.TestRun[] testRuns = JsonCodec.TEST_RUNS_READER.readValue(jsonResponse);
         return Arrays.stream(testRuns).collect(Collectors.toSet());
     }
 
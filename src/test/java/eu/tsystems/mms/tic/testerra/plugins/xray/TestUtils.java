@@ -53,7 +53,11 @@ public class TestUtils {
             webResource.addFilter(new GetRequestOnlyFilter());
         }
         if (xrayConfig.isWebResourceFilterLoggingEnabled()) {
-            webResource.addFilter(new LoggingFilter());
+            webResource.addFilter(new LoggingFilter(
+                    xrayConfig.getWebResourceFilterLoggingEntityMaxBytes(),
+                    xrayConfig.getWebResourceFilterLoggingSampleRate(),
+                    xrayConfig.getWebResourceFilterLoggingRedactedHeaders()
+            ));
         }
         return webResource;
     }
@@ -0,0 +1,751 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import eu.tsystems.mms.tic.testframework.logging.Loggable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In-process HTTP stub of the Jira and Xray REST endpoints used by the connector.
+ * Issues, Test Runs and Test Set members are kept in memory, so that {@link eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils}
+ * and the synchronizer can be exercised end to end without a Jira instance.
+ * <p>
+ * Supported endpoints:
+ * <ul>
+ *     <li>{@code api/2/search} with the JQL conditions created by the connector</li>
+ *     <li>{@code api/2/issue} to create, read and update issues</li>
+ *     <li>{@code api/2/issue/{key}/transitions} with the workflow Open -> In Progress -> Done -> Open</li>
+ *     <li>{@code api/2/issue/{key}/attachments} and {@code api/2/attachment/{id}}</li>
+ *     <li>{@code raven/1.0/import/execution}, {@code raven/1.0/execution/result} and {@code raven/1.0/api/testset/{key}/test}</li>
+ * </ul>
+ * Latency, error rate and throttling can be configured to verify retry, rate limit and batching behaviour.
+ * Every request is counted by its method and path with keys and ids replaced, e.g. {@code GET api/2/issue/{key}}.
+ */
+public class JiraStubServer implements Closeable, Loggable {
+
+    public static final String CONTEXT_PATH = "/jira/rest/";
+    public static final String ISSUE_TYPE_TEST = "Test";
+    public static final String ISSUE_TYPE_TEST_EXECUTION = "Test Execution";
+
+    public static final String STATUS_OPEN = "1";
+    public static final String STATUS_IN_PROGRESS = "3";
+    public static final String STATUS_DONE = "5";
+
+    private static final int STATUS_TOO_MANY_REQUESTS = 429;
+
+    private static final Pattern ISSUE_PATTERN = Pattern.compile("^api/2/issue/([^/]+)(/transitions|/attachments)?$");
+    private static final Pattern ATTACHMENT_PATTERN = Pattern.compile("^api/2/attachment/(\\d+)$");
+    private static final Pattern TEST_SET_TESTS_PATTERN = Pattern.compile("^raven/1\\.0/api/testset/([^/]+)/test$");
+    private static final Pattern JQL_CONDITION_PATTERN = Pattern.compile("^(\\S+)\\s+(=|~|!~|in|not in)\\s*(.*)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FILENAME_PATTERN = Pattern.compile("filename=\"([^\"]*)\"");
+    private static final Pattern ISSUE_KEY_PATTERN = Pattern.compile("[A-Z][A-Z0-9_]*-\\d+");
+
+    private final ObjectMapper objectMapper = JsonCodec.getObjectMapper();
+    private final Map<String, ObjectNode> statuses = new HashMap<>();
+    private final Map<String, List<ObjectNode>> transitionsByStatus = new HashMap<>();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String projectKey;
+
+    private final Map<String, ObjectNode> issues = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, ObjectNode>> testRunsByTestExecution = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> testsByTestSet = new ConcurrentHashMap<>();
+    private final AtomicInteger issueSequence = new AtomicInteger(1000);
+    private final AtomicInteger attachmentSequence = new AtomicInteger();
+
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger throttledRequests = new AtomicInteger();
+
+    private volatile long latencyMillis = 0;
+    private volatile long latencyJitterMillis = 0;
+    private volatile double errorRate = 0;
+    private volatile int errorStatus = 503;
+    private volatile int maxRequestsPerSecond = 0;
+
+    private final Object throttleLock = new Object();
+    private long throttleWindowStart = 0;
+    private int throttleWindowRequests = 0;
+
+    /**
+     * Starts the server on a free port of the loopback interface
+     *
+     * @param projectKey Project of issues created without a project
+     */
+    public JiraStubServer(String projectKey) throws IOException {
+        this.projectKey = projectKey;
+        createWorkflow();
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Jira-Stub-Server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(CONTEXT_PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+        log().info(String.format("Started Jira stub server on %s", getBaseUri()));
+    }
+
+    private void createWorkflow() {
+        statuses.put(STATUS_OPEN, createStatus(STATUS_OPEN, "Open", "new"));
+        statuses.put(STATUS_IN_PROGRESS, createStatus(STATUS_IN_PROGRESS, "In Progress", "indeterminate"));
+        statuses.put(STATUS_DONE, createStatus(STATUS_DONE, "Done", "done"));
+        transitionsByStatus.put(STATUS_OPEN, Collections.singletonList(createTransition("11", "Start Progress", STATUS_IN_PROGRESS)));
+        transitionsByStatus.put(STATUS_IN_PROGRESS, Collections.singletonList(createTransition("21", "Done", STATUS_DONE)));
+        transitionsByStatus.put(STATUS_DONE, Collections.singletonList(createTransition("31", "Reopen", STATUS_OPEN)));
+    }
+
+    private ObjectNode createStatus(String id, String name, String categoryKey) {
+        final ObjectNode status = objectMapper.createObjectNode();
+        status.put("id", id);
+        status.put("name", name);
+        status.putObject("statusCategory").put("key", categoryKey);
+        return status;
+    }
+
+    private ObjectNode createTransition(String id, String name, String toStatusId) {
+        final ObjectNode transition = objectMapper.createObjectNode();
+        transition.put("id", id);
+        transition.put("name", name);
+        transition.set("to", statuses.get(toStatusId));
+        return transition;
+    }
+
+    public URI getBaseUri() {
+        return URI.create(String.format("http://%s:%d%s", server.getAddress().getHostString(), server.getAddress().getPort(), CONTEXT_PATH));
+    }
+
+    /**
+     * @return A resource of the base URI with a new client, without authentication
+     */
+    public WebResource createWebResource() {
+        return Client.create().resource(getBaseUri());
+    }
+
+    /**
+     * @param latencyMillis Delay of every response
+     * @param jitterMillis Maximum random delay added to the latency
+     */
+    public void setLatency(long latencyMillis, long jitterMillis) {
+        this.latencyMillis = latencyMillis;
+        this.latencyJitterMillis = jitterMillis;
+    }
+
+    /**
+     * @param errorRate Probability between 0 and 1 that a request fails with the given status without being processed
+     */
+    public void setErrorRate(double errorRate, int errorStatus) {
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+    }
+
+    /**
+     * @param maxRequestsPerSecond Requests exceeding this limit within a second are rejected with 429. 0 disables throttling.
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Creates an issue in status Open
+     *
+     * @return The key of the new issue
+     */
+    public String createIssue(String issueType, String summary) {
+        final ObjectNode fields = objectMapper.createObjectNode();
+        fields.put("summary", summary);
+        fields.putObject("issuetype").put("name", issueType);
+        return text(createIssue(fields).get("key"));
+    }
+
+    public Optional<JsonNode> findIssue(String issueKey) {
+        return Optional.ofNullable(issues.get(issueKey)).<JsonNode>map(issue -> {
+            synchronized (issue) {
+                return issue.deepCopy();
+            }
+        });
+    }
+
+    public int getIssueCount() {
+        return issues.size();
+    }
+
+    public Collection<JsonNode> getTestRuns(String testExecutionKey) {
+        final Map<String, ObjectNode> testRuns = testRunsByTestExecution.getOrDefault(testExecutionKey, Collections.emptyMap());
+        synchronized (testRuns) {
+            return new ArrayList<>(testRuns.values());
+        }
+    }
+
+    public Set<String> getTestSetTests(String testSetKey) {
+        final Set<String> tests = testsByTestSet.getOrDefault(testSetKey, Collections.emptySet());
+        synchronized (tests) {
+            return new LinkedHashSet<>(tests);
+        }
+    }
+
+    /**
+     * @param endpoint Method and path with keys and ids replaced, e.g. {@code POST raven/1.0/import/execution}
+     */
+    public int getRequestCount(String endpoint) {
+        final AtomicInteger count = requestCounts.get(endpoint);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * @return Count of all received requests by endpoint, including rejected ones
+     */
+    public Map<String, Integer> getRequestCounts() {
+        final Map<String, Integer> counts = new TreeMap<>();
+        requestCounts.forEach((endpoint, count) -> counts.put(endpoint, count.get()));
+        return counts;
+    }
+
+    public int getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    public int getThrottledRequestCount() {
+        return throttledRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            final String path = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length());
+            final String method = exchange.getRequestMethod();
+            // Read the body in any case, otherwise the client fails writing it
+            final byte[] body = IOUtils.toByteArray(exchange.getRequestBody());
+            requestCounts.computeIfAbsent(getEndpoint(method, path), endpoint -> new AtomicInteger()).incrementAndGet();
+
+            simulateLatency();
+            if (isThrottled()) {
+                throttledRequests.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                respondError(exchange, STATUS_TOO_MANY_REQUESTS, "Rate limit exceeded");
+            } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                injectedErrors.incrementAndGet();
+                respondError(exchange, errorStatus, "Injected error");
+            } else {
+                route(exchange, method, path, body);
+            }
+        } catch (Exception e) {
+            log().error(String.format("Unable to handle %s %s", exchange.getRequestMethod(), exchange.getRequestURI()), e);
+            respondError(exchange, 500, e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String getEndpoint(String method, String path) {
+        final String normalizedPath = ATTACHMENT_PATTERN.matcher(path).matches()
+                ? "api/2/attachment/{id}"
+                : ISSUE_KEY_PATTERN.matcher(path).replaceAll("{key}");
+        return String.format("%s %s", method, normalizedPath);
+    }
+
+    private void simulateLatency() throws InterruptedException {
+        long delay = latencyMillis;
+        if (latencyJitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1);
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+    }
+
+    /**
+     * Fixed window of one second
+     */
+    private boolean isThrottled() {
+        final int limit = maxRequestsPerSecond;
+        if (limit <= 0) {
+            return false;
+        }
+        synchronized (throttleLock) {
+            final long now = System.currentTimeMillis();
+            if (now - throttleWindowStart >= 1000) {
+                throttleWindowStart = now;
+                throttleWindowRequests = 0;
+            }
+            return ++throttleWindowRequests > limit;
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String path, byte[] body) throws IOException {
+        final Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Matcher matcher;
+
+        if (path.equals("api/2/search") && (method.equals("GET") || method.equals("POST"))) {
+            search(exchange, method.equals("GET") ? query : parseSearchBody(body));
+        } else if (path.equals("api/2/issue") && method.equals("POST")) {
+            final ObjectNode issue = createIssue(readFields(body));
+            respond(exchange, 201, createReference(issue));
+        } else if ((matcher = ISSUE_PATTERN.matcher(path)).matches()) {
+            final ObjectNode issue = issues.get(matcher.group(1));
+            if (issue == null) {
+                respondError(exchange, 404, "Issue does not exist");
+            } else if (matcher.group(2) == null) {
+                handleIssue(exchange, method, issue, query, body);
+            } else if (matcher.group(2).equals("/transitions")) {
+                handleTransitions(exchange, method, issue, body);
+            } else if (method.equals("POST")) {
+                addAttachment(exchange, issue, body);
+            } else {
+                respondError(exchange, 405, "Method not allowed");
+            }
+        } else if ((matcher = ATTACHMENT_PATTERN.matcher(path)).matches() && method.equals("DELETE")) {
+            deleteAttachment(exchange, matcher.group(1));
+        } else if (path.equals("raven/1.0/import/execution") && method.equals("POST")) {
+            importExecution(exchange, body);
+        } else if (path.equals("raven/1.0/execution/result") && method.equals("GET")) {
+            final ArrayNode testRuns = objectMapper.createArrayNode();
+            getTestRuns(StringUtils.defaultString(query.get("testExecKey"))).forEach(testRuns::add);
+            respond(exchange, 200, testRuns);
+        } else if ((matcher = TEST_SET_TESTS_PATTERN.matcher(path)).matches() && method.equals("POST")) {
+            addTestSetTests(exchange, matcher.group(1), body);
+        } else {
+            respondError(exchange, 404, String.format("No stub for %s %s", method, path));
+        }
+    }
+
+    private void search(HttpExchange exchange, Map<String, String> query) throws IOException {
+        final String jql = StringUtils.defaultString(query.get("jql"));
+        final boolean validateQuery = !"false".equalsIgnoreCase(query.get("validateQuery"));
+        final int startAt = Integer.parseInt(StringUtils.defaultIfBlank(query.get("startAt"), "0"));
+        final int maxResults = Integer.parseInt(StringUtils.defaultIfBlank(query.get("maxResults"), "50"));
+        final List<String> fields = splitFields(query.get("fields"));
+
+        Predicate<ObjectNode> filter = issue -> true;
+        for (String condition : StringUtils.splitByWholeSeparator(jql, " AND ")) {
+            final Matcher matcher = JQL_CONDITION_PATTERN.matcher(condition.trim());
+            if (!matcher.matches()) {
+                continue;
+            }
+            final String field = matcher.group(1);
+            final String operator = matcher.group(2).toLowerCase();
+            final String operand = matcher.group(3).trim();
+
+            if (field.equals("key") && operator.equals("in")) {
+                final Set<String> keys = Arrays.stream(StringUtils.strip(operand, "()").split(","))
+                        .map(String::trim)
+                        .collect(Collectors.toSet());
+                if (validateQuery) {
+                    final Optional<String> missingKey = keys.stream().filter(key -> !issues.containsKey(key)).findFirst();
+                    if (missingKey.isPresent()) {
+                        respondError(exchange, 400, String.format("An issue with key '%s' does not exist for field 'key'.", missingKey.get()));
+                        return;
+                    }
+                }
+                filter = filter.and(issue -> keys.contains(text(issue.get("key"))));
+            } else {
+                filter = filter.and(createFieldFilter(field, operator, unquote(operand)));
+            }
+        }
+
+        final List<ObjectNode> matches = issues.values().stream()
+                .filter(filter)
+                .sorted(Comparator.comparingInt(issue -> Integer.parseInt(text(issue.get("id")))))
+                .collect(Collectors.toList());
+
+        final ObjectNode result = objectMapper.createObjectNode();
+        result.put("startAt", startAt);
+        result.put("maxResults", maxResults);
+        result.put("total", matches.size());
+        final ArrayNode resultIssues = result.putArray("issues");
+        matches.stream()
+                .skip(startAt)
+                .limit(maxResults)
+                .forEach(issue -> resultIssues.add(copyIssue(issue, fields)));
+        respond(exchange, 200, result);
+    }
+
+    /**
+     * Conditions of unknown fields like custom fields or functions are ignored
+     */
+    private Predicate<ObjectNode> createFieldFilter(String field, String operator, String value) {
+        final String fieldName = field.equalsIgnoreCase("type") ? "issuetype" : field.toLowerCase();
+        if (!Arrays.asList("project", "issuetype", "summary", "description", "labels").contains(fieldName)) {
+            return issue -> true;
+        }
+        return issue -> {
+            final String fieldValue;
+            synchronized (issue) {
+                fieldValue = getFieldText(issue.path("fields").path(fieldName));
+            }
+            switch (operator) {
+                case "=":
+                    return value.equalsIgnoreCase(fieldValue);
+                case "~":
+                    return StringUtils.containsIgnoreCase(fieldValue, value);
+                case "!~":
+                    return !StringUtils.containsIgnoreCase(fieldValue, value);
+                default:
+                    return true;
+            }
+        };
+    }
+
+    private String getFieldText(JsonNode field) {
+        if (field.isArray()) {
+            final List<String> values = new ArrayList<>();
+            field.forEach(value -> values.add(getFieldText(value)));
+            return String.join(" ", values);
+        } else if (field.isObject()) {
+            for (String property : Arrays.asList("key", "name", "value")) {
+                if (field.has(property)) {
+                    return text(field.get(property));
+                }
+            }
+            return null;
+        }
+        return text(field);
+    }
+
+    private void handleIssue(HttpExchange exchange, String method, ObjectNode issue, Map<String, String> query, byte[] body) throws IOException {
+        switch (method) {
+            case "GET":
+                final ObjectNode copy = copyIssue(issue, splitFields(query.get("fields")));
+                if (StringUtils.contains(query.get("expand"), "transitions")) {
+                    synchronized (issue) {
+                        copy.set("transitions", getTransitions(issue));
+                    }
+                }
+                respond(exchange, 200, copy);
+                break;
+            case "PUT":
+                final ObjectNode fields = readFields(body);
+                synchronized (issue) {
+                    ((ObjectNode) issue.get("fields")).setAll(fields);
+                }
+                respond(exchange, 204, null);
+                break;
+            default:
+                respondError(exchange, 405, "Method not allowed");
+        }
+    }
+
+    private void handleTransitions(HttpExchange exchange, String method, ObjectNode issue, byte[] body) throws IOException {
+        if (method.equals("GET")) {
+            final ObjectNode result = objectMapper.createObjectNode();
+            synchronized (issue) {
+                result.set("transitions", getTransitions(issue));
+            }
+            respond(exchange, 200, result);
+        } else if (method.equals("POST")) {
+            final String transitionId = text(objectMapper.readTree(body).path("transition").path("id"));
+            synchronized (issue) {
+                final Optional<ObjectNode> transition = transitionsByStatus.get(getStatusId(issue)).stream()
+                        .filter(candidate -> candidate.get("id").asText().equals(transitionId))
+                        .findFirst();
+                if (!transition.isPresent()) {
+                    respondError(exchange, 400, String.format("Transition '%s' is not valid for this issue.", transitionId));
+                    return;
+                }
+                ((ObjectNode) issue.get("fields")).set("status", transition.get().get("to"));
+            }
+            respond(exchange, 204, null);
+        } else {
+            respondError(exchange, 405, "Method not allowed");
+        }
+    }
+
+    private ArrayNode getTransitions(ObjectNode issue) {
+        final ArrayNode transitions = objectMapper.createArrayNode();
+        transitionsByStatus.get(getStatusId(issue)).forEach(transitions::add);
+        return transitions;
+    }
+
+    private String getStatusId(ObjectNode issue) {
+        return text(issue.path("fields").path("status").path("id"));
+    }
+
+    private void addAttachment(HttpExchange exchange, ObjectNode issue, byte[] body) throws IOException {
+        final Matcher matcher = FILENAME_PATTERN.matcher(new String(body, StandardCharsets.ISO_8859_1));
+        final ObjectNode attachment = objectMapper.createObjectNode();
+        attachment.put("id", Integer.toString(attachmentSequence.incrementAndGet()));
+        attachment.put("filename", matcher.find() ? matcher.group(1) : "attachment");
+        attachment.put("size", body.length);
+        synchronized (issue) {
+            final ObjectNode fields = (ObjectNode) issue.get("fields");
+            if (!fields.has("attachment")) {
+                fields.putArray("attachment");
+            }
+            ((ArrayNode) fields.get("attachment")).add(attachment);
+        }
+        final ArrayNode result = objectMapper.createArrayNode();
+        result.add(attachment);
+        respond(exchange, 200, result);
+    }
+
+    private void deleteAttachment(HttpExchange exchange, String attachmentId) throws IOException {
+        for (ObjectNode issue : issues.values()) {
+            synchronized (issue) {
+                final JsonNode attachments = issue.path("fields").path("attachment");
+                for (int i = 0; i < attachments.size(); i++) {
+                    if (attachmentId.equals(text(attachments.get(i).get("id")))) {
+                        ((ArrayNode) attachments).remove(i);
+                        respond(exchange, 204, null);
+                        return;
+                    }
+                }
+            }
+        }
+        respondError(exchange, 404, "Attachment does not exist");
+    }
+
+    /**
+     * Creates the Test Execution and Tests without key, like Xray does
+     */
+    private void importExecution(HttpExchange exchange, byte[] body) throws IOException {
+        final JsonNode testExecutionImport = objectMapper.readTree(body);
+        final JsonNode info = testExecutionImport.path("info");
+        final String testExecutionKey = text(testExecutionImport.get("testExecutionKey"));
+
+        final ObjectNode testExecution;
+        if (testExecutionKey != null) {
+            testExecution = issues.get(testExecutionKey);
+            if (testExecution == null) {
+                respondError(exchange, 400, String.format("Test Execution with key %s not found", testExecutionKey));
+                return;
+            }
+        } else {
+            final ObjectNode fields = objectMapper.createObjectNode();
+            fields.put("summary", StringUtils.defaultString(text(info.get("summary")), "Execution of automated tests"));
+            fields.put("description", text(info.get("description")));
+            fields.putObject("issuetype").put("name", ISSUE_TYPE_TEST_EXECUTION);
+            putProject(fields, text(info.get("project")));
+            testExecution = createIssue(fields);
+        }
+
+        final Map<String, ObjectNode> testRuns = testRunsByTestExecution.computeIfAbsent(text(testExecution.get("key")), key -> new LinkedHashMap<>());
+        final ArrayNode success = objectMapper.createArrayNode();
+        for (JsonNode test : testExecutionImport.path("tests")) {
+            final ObjectNode testRun = ((ObjectNode) test).deepCopy();
+            ObjectNode testIssue = issues.get(StringUtils.defaultString(text(test.get("testKey"))));
+            if (testIssue == null) {
+                final JsonNode testInfo = test.path("testInfo");
+                final ObjectNode fields = objectMapper.createObjectNode();
+                fields.put("summary", text(testInfo.get("summary")));
+                fields.putObject("issuetype").put("name", ISSUE_TYPE_TEST);
+                if (testInfo.has("labels")) {
+                    fields.set("labels", testInfo.get("labels"));
+                }
+                putProject(fields, text(testInfo.get("projectKey")));
+                testIssue = createIssue(fields);
+                testRun.put("testKey", text(testIssue.get("key")));
+                testRun.remove("testInfo");
+            }
+            synchronized (testRuns) {
+                testRuns.put(text(testIssue.get("key")), testRun);
+            }
+            success.add(createReference(testIssue));
+        }
+
+        final ObjectNode result = objectMapper.createObjectNode();
+        result.set("testExecIssue", createReference(testExecution));
+        result.putObject("testIssues").set("success", success);
+        respond(exchange, 200, result);
+    }
+
+    private void addTestSetTests(HttpExchange exchange, String testSetKey, byte[] body) throws IOException {
+        if (!issues.containsKey(testSetKey)) {
+            respondError(exchange, 404, "Test Set does not exist");
+            return;
+        }
+        final Set<String> tests = testsByTestSet.computeIfAbsent(testSetKey, key -> new LinkedHashSet<>());
+        synchronized (tests) {
+            objectMapper.readTree(body).path("add").forEach(testKey -> tests.add(testKey.asText()));
+        }
+        respond(exchange, 200, objectMapper.createArrayNode());
+    }
+
+    private ObjectNode createIssue(ObjectNode fields) {
+        if (!fields.path("project").has("key")) {
+            putProject(fields, null);
+        }
+        final String id = Integer.toString(issueSequence.incrementAndGet());
+        final String key = String.format("%s-%s", fields.path("project").path("key").asText(), id);
+        fields.set("status", statuses.get(STATUS_OPEN));
+
+        final ObjectNode issue = objectMapper.createObjectNode();
+        issue.put("id", id);
+        issue.put("key", key);
+        issue.put("self", getBaseUri().resolve("api/2/issue/" + id).toString());
+        issue.set("fields", fields);
+        issues.put(key, issue);
+        return issue;
+    }
+
+    private void putProject(ObjectNode fields, String issueProjectKey) {
+        fields.putObject("project").put("key", StringUtils.defaultIfBlank(issueProjectKey, projectKey));
+    }
+
+    private ObjectNode createReference(ObjectNode issue) {
+        final ObjectNode reference = objectMapper.createObjectNode();
+        reference.set("id", issue.get("id"));
+        reference.set("key", issue.get("key"));
+        reference.set("self", issue.get("self"));
+        return reference;
+    }
+
+    /**
+     * @param fields Names of the fields to copy, all fields if empty
+     */
+    private ObjectNode copyIssue(ObjectNode issue, List<String> fields) {
+        synchronized (issue) {
+            final ObjectNode copy = issue.deepCopy();
+            if (!fields.isEmpty() && !fields.contains("*all")) {
+                ((ObjectNode) copy.get("fields")).retain(fields);
+            }
+            return copy;
+        }
+    }
+
+    private ObjectNode readFields(byte[] body) throws IOException {
+        final JsonNode fields = objectMapper.readTree(body).path("fields");
+        return fields.isObject() ? (ObjectNode) fields : objectMapper.createObjectNode();
+    }
+
+    private Map<String, String> parseSearchBody(byte[] body) throws IOException {
+        final JsonNode search = objectMapper.readTree(body);
+        final Map<String, String> query = new HashMap<>();
+        search.fields().forEachRemaining(entry -> {
+            final JsonNode value = entry.getValue();
+            if (value.isArray()) {
+                final List<String> values = new ArrayList<>();
+                value.forEach(item -> values.add(item.asText()));
+                query.put(entry.getKey(), String.join(",", values));
+            } else {
+                query.put(entry.getKey(), value.asText());
+            }
+        });
+        return query;
+    }
+
+    private static List<String> splitFields(String fields) {
+        if (StringUtils.isBlank(fields)) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(fields.split(",")).map(String::trim).collect(Collectors.toList());
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        final Map<String, String> query = new HashMap<>();
+        if (StringUtils.isBlank(rawQuery)) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            final int separator = parameter.indexOf('=');
+            final String name = separator < 0 ? parameter : parameter.substring(0, separator);
+            final String value = separator < 0 ? "" : parameter.substring(separator + 1);
+            query.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return query;
+    }
+
+    /**
+     * Removes the quotes of values created by {@link eu.tsystems.mms.tic.testerra.plugins.xray.jql.ExactSingleValue}
+     */
+    private static String unquote(String value) {
+        String unquoted = value;
+        if (unquoted.length() >= 2 && unquoted.startsWith("\"") && unquoted.endsWith("\"")) {
+            unquoted = unquoted.substring(1, unquoted.length() - 1);
+        }
+        if (unquoted.startsWith("\\\"") && unquoted.endsWith("\\\"") && unquoted.length() >= 4) {
+            unquoted = unquoted.substring(2, unquoted.length() - 2);
+        }
+        return unquoted;
+    }
+
+    private static String text(JsonNode node) {
+        return node != null && node.isValueNode() && !node.isNull() ? node.asText() : null;
+    }
+
+    private void respondError(HttpExchange exchange, int status, String message) throws IOException {
+        final ObjectNode error = objectMapper.createObjectNode();
+        error.putArray("errorMessages").add(StringUtils.defaultString(message));
+        respond(exchange, status, error);
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        final byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
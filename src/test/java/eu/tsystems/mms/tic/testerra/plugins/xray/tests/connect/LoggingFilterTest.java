@@ -0,0 +1,162 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.connect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.LoggingFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.annotations.Test;
+
+public class LoggingFilterTest extends AbstractTest {
+
+    private static final String BASE_URI = "http://localhost/jira/rest/";
+    private static final String RESPONSE_BODY = "{\"key\":\"SWFTE-1\",\"fields\":{\"summary\":\"Logged issue\"}}";
+
+    /**
+     * Collects the messages instead of logging them
+     */
+    private static class CollectingLoggingFilter extends LoggingFilter {
+        private final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+
+        CollectingLoggingFilter(int maxEntitySize, double sampleRate) {
+            super(maxEntitySize, sampleRate, DEFAULT_REDACTED_HEADERS);
+        }
+
+        @Override
+        protected boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        protected void write(String message) {
+            messages.add(message);
+        }
+
+        String nextMessage() throws InterruptedException {
+            return messages.poll(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private Client createClient(LoggingFilter loggingFilter) {
+        final Client client = new Client(request -> {
+            // Writes the entity like a transport, through the adapters of the filters
+            if (request.getEntity() != null) {
+                try (OutputStream outputStream = request.getAdapter().adapt(request, new ByteArrayOutputStream())) {
+                    outputStream.write(request.getEntity().toString().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new ClientHandlerException(e);
+                }
+            }
+            final InBoundHeaders headers = new InBoundHeaders();
+            headers.putSingle("Set-Cookie", "JSESSIONID=secret");
+            headers.putSingle("Content-Type", "application/json");
+            return new ClientResponse(200, headers, new ByteArrayInputStream(RESPONSE_BODY.getBytes(StandardCharsets.UTF_8)), null);
+        });
+        client.addFilter(loggingFilter);
+        return client;
+    }
+
+    @Test
+    public void testTruncateEntitiesAndRedactHeaders() throws Exception {
+        final CollectingLoggingFilter loggingFilter = new CollectingLoggingFilter(16, 1);
+        final Client client = createClient(loggingFilter);
+        final String requestBody = "{\"fields\":{\"summary\":\"" + StringUtils.repeat("x", 1000) + "\"}}";
+
+        final ClientResponse response = client.resource(BASE_URI).path("api/2/issue")
+                .header("Authorization", "Basic secret")
+                .post(ClientResponse.class, requestBody);
+        final String requestMessage = loggingFilter.nextMessage();
+        assertTrue(requestMessage.contains("> POST " + BASE_URI + "api/2/issue"));
+        assertTrue(requestMessage.contains("> Authorization: <redacted>"));
+        assertFalse(requestMessage.contains("secret"));
+        assertTrue(requestMessage.contains(requestBody.substring(0, 16) + String.format("...more... (%d bytes)", requestBody.length())));
+
+        // The response is logged when the entity has been read
+        assertEquals(IOUtils.toString(response.getEntityInputStream(), StandardCharsets.UTF_8), RESPONSE_BODY);
+        response.close();
+        final String responseMessage = loggingFilter.nextMessage();
+        assertTrue(responseMessage.contains("< 200"));
+        assertTrue(responseMessage.contains("< Set-Cookie: <redacted>"));
+        assertTrue(responseMessage.contains("< Content-Type: application/json"));
+        assertTrue(responseMessage.contains(RESPONSE_BODY.substring(0, 16) + String.format("...more... (%d bytes)", RESPONSE_BODY.length())));
+        assertNull(loggingFilter.nextMessage());
+    }
+
+    @Test
+    public void testSampleRateZeroLogsNothing() throws Exception {
+        final CollectingLoggingFilter loggingFilter = new CollectingLoggingFilter(LoggingFilter.DEFAULT_MAX_ENTITY_SIZE, 0);
+        final Client client = createClient(loggingFilter);
+
+        final ClientResponse response = client.resource(BASE_URI).path("api/2/issue/SWFTE-1").get(ClientResponse.class);
+        assertEquals(IOUtils.toString(response.getEntityInputStream(), StandardCharsets.UTF_8), RESPONSE_BODY);
+        response.close();
+        assertNull(loggingFilter.messages.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testUniqueIdsOfParallelRequests() throws Exception {
+        final int requestCount = 100;
+        final CollectingLoggingFilter loggingFilter = new CollectingLoggingFilter(0, 1);
+        final Client client = createClient(loggingFilter);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < requestCount; i++) {
+            executor.execute(() -> client.resource(BASE_URI).path("api/2/issue/SWFTE-1").get(ClientResponse.class).close());
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        final Set<String> requestIds = new HashSet<>();
+        for (int i = 0; i < 2 * requestCount; i++) {
+            final String message = loggingFilter.nextMessage();
+            if (message.contains("Client out-bound request")) {
+                requestIds.add(StringUtils.substringBefore(message, " "));
+            }
+        }
+        assertEquals(requestIds.size(), requestCount);
+        assertEquals(loggingFilter.getDroppedMessageCount(), 0);
+        assertEquals(Collections.max(requestIds, (a, b) -> Long.compare(Long.parseLong(a), Long.parseLong(b))), Integer.toString(requestCount));
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.connect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.XrayMetrics;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.MetricsFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.IOUtils;
+import org.testng.annotations.Test;
+
+public class MetricsFilterTest extends AbstractTest {
+
+    private static final String BASE_URI = "http://localhost/jira/rest/";
+    private static final String RESPONSE_BODY = "{\"key\":\"SWFTE-1\"}";
+
+    private Client createClient(XrayMetrics metrics, Integer... statusCodes) {
+        final Iterator<Integer> statusIterator = Arrays.asList(statusCodes).iterator();
+        final Client client = new Client(request -> {
+            // Writes the entity like a transport, through the adapters of the filters
+            if (request.getEntity() != null) {
+                try (OutputStream outputStream = request.getAdapter().adapt(request, new ByteArrayOutputStream())) {
+                    outputStream.write(request.getEntity().toString().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new ClientHandlerException(e);
+                }
+            }
+            final InBoundHeaders headers = new InBoundHeaders();
+            headers.putSingle("Retry-After", "0");
+            return new ClientResponse(statusIterator.next(), headers, new ByteArrayInputStream(RESPONSE_BODY.getBytes(StandardCharsets.UTF_8)), null);
+        });
+        // Same order as in XrayConnector: metrics innermost, retries outermost
+        client.addFilter(new MetricsFilter(metrics));
+        client.addFilter(new RetryFilter(2, 1, 10));
+        return client;
+    }
+
+    @Test
+    public void testRecordEndpointsAndStatus() throws IOException {
+        final XrayMetrics metrics = new XrayMetrics();
+        final Client client = createClient(metrics, 200, 200, 404);
+
+        for (String issueKey : Arrays.asList("SWFTE-1", "SWFTE-2")) {
+            final ClientResponse response = client.resource(BASE_URI).path("api/2/issue/" + issueKey).get(ClientResponse.class);
+            assertEquals(IOUtils.toString(response.getEntityInputStream(), StandardCharsets.UTF_8), RESPONSE_BODY);
+            response.close();
+        }
+        client.resource(BASE_URI).path("api/2/attachment/10234").delete(ClientResponse.class).close();
+
+        final XrayMetrics.EndpointMetrics issueEndpoint = metrics.getEndpoint("GET api/2/issue/{key}");
+        assertEquals(issueEndpoint.getRequestCount(), 2);
+        assertEquals(issueEndpoint.getStatusCounts().get(200).longValue(), 2);
+        assertEquals(issueEndpoint.getResponseBytes(), 2 * RESPONSE_BODY.length());
+        assertEquals(issueEndpoint.getLatency().getCount(), 2);
+
+        final XrayMetrics.EndpointMetrics attachmentEndpoint = metrics.getEndpoint("DELETE api/2/attachment/{id}");
+        assertEquals(attachmentEndpoint.getStatusCounts().get(404).longValue(), 1);
+        assertEquals(metrics.getEndpoints().size(), 2);
+    }
+
+    @Test
+    public void testRecordRetriesAndThrottling() {
+        final XrayMetrics metrics = new XrayMetrics();
+        final Client client = createClient(metrics, 429, 503, 200);
+        final String requestBody = "{\"add\":[\"SWFTE-2\"]}";
+
+        client.resource(BASE_URI).path("raven/1.0/api/testset/SWFTE-1/test").post(ClientResponse.class, requestBody).close();
+
+        final XrayMetrics.EndpointMetrics endpoint = metrics.getEndpoint("POST raven/1.0/api/testset/{key}/test");
+        assertEquals(endpoint.getRequestCount(), 3);
+        assertEquals(metrics.getCounter(XrayMetrics.COUNTER_RETRIES), 2);
+        assertEquals(metrics.getCounter(XrayMetrics.COUNTER_THROTTLED), 1);
+        assertEquals(endpoint.getRequestBytes(), 3 * requestBody.length());
+    }
+
+    @Test
+    public void testGaugesAndTimers() {
+        final XrayMetrics metrics = new XrayMetrics();
+        final AtomicInteger queueSize = new AtomicInteger(3);
+        metrics.registerGauge("queue", queueSize::get);
+        queueSize.set(5);
+        assertEquals(metrics.getGauge("queue").get().intValue(), 5);
+        assertTrue(!metrics.getGauge("unknown").isPresent());
+
+        for (int millis = 1; millis <= 100; millis++) {
+            metrics.recordDuration("flush", millis);
+        }
+        final XrayMetrics.Histogram timer = metrics.getTimer("flush");
+        assertEquals(timer.getCount(), 100);
+        assertEquals(timer.getMaxMillis(), 100);
+        assertEquals(timer.getPercentileMillis(50), 50);
+        assertEquals(timer.getPercentileMillis(95), 100);
+        assertEquals(timer.getMeanMillis(), 50.5);
+        assertTrue(metrics.createSummary().contains("queue: 5"));
+    }
+}
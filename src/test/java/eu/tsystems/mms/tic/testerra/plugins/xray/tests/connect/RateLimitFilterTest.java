@@ -0,0 +1,55 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.connect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RateLimitFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.io.ByteArrayInputStream;
+import org.testng.annotations.Test;
+
+public class RateLimitFilterTest extends AbstractTest {
+
+    @Test
+    public void testDelayRequestsAboveBurst() {
+        final Client client = new Client(request -> new ClientResponse(200, new InBoundHeaders(), new ByteArrayInputStream(new byte[0]), null));
+        final RateLimitFilter rateLimitFilter = new RateLimitFilter(20, 2);
+        client.addFilter(rateLimitFilter);
+
+        final long start = System.currentTimeMillis();
+        for (int i = 0; i < 6; i++) {
+            client.resource("http://localhost/jira/rest/api/2/search").get(ClientResponse.class);
+        }
+        final long duration = System.currentTimeMillis() - start;
+
+        assertEquals(rateLimitFilter.getDelayedRequests(), 4);
+        // 4 requests above the burst at 20 requests per second take at least 200 ms
+        assertTrue(duration >= 150, "Duration was " + duration);
+        assertTrue(rateLimitFilter.getTotalWaitMillis() > 0);
+        assertTrue(rateLimitFilter.getMaxWaitMillis() <= rateLimitFilter.getTotalWaitMillis());
+    }
+}
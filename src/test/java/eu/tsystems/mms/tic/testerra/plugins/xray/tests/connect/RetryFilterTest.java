@@ -0,0 +1,104 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.connect;
+
+import static org.testng.Assert.assertEquals;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class RetryFilterTest extends AbstractTest {
+
+    private static final String BASE_URI = "http://localhost/jira/rest/";
+
+    private Client createClient(AtomicInteger requestCount, Integer... statusCodes) {
+        final Iterator<Integer> statusIterator = Arrays.asList(statusCodes).iterator();
+        final Client client = new Client(request -> {
+            requestCount.incrementAndGet();
+            final InBoundHeaders headers = new InBoundHeaders();
+            headers.putSingle("Retry-After", "0");
+            return new ClientResponse(statusIterator.next(), headers, new ByteArrayInputStream(new byte[0]), null);
+        });
+        client.addFilter(new RetryFilter(2, 1, 10));
+        return client;
+    }
+
+    @Test
+    public void testRetryUntilSuccess() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final Client client = createClient(requestCount, 503, 429, 200);
+        final ClientResponse response = client.resource(BASE_URI).path("api/2/issue/SWFTE-1").get(ClientResponse.class);
+        assertEquals(response.getStatus(), 200);
+        assertEquals(requestCount.get(), 3);
+    }
+
+    @Test
+    public void testGiveUpAfterMaxRetries() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final Client client = createClient(requestCount, 503, 503, 503, 200);
+        final ClientResponse response = client.resource(BASE_URI).path("api/2/issue/SWFTE-1").get(ClientResponse.class);
+        assertEquals(response.getStatus(), 503);
+        assertEquals(requestCount.get(), 3);
+    }
+
+    @Test
+    public void testNoRetryOfNonIdempotentRequestOnGatewayTimeout() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final Client client = createClient(requestCount, 504, 200);
+        final ClientResponse response = client.resource(BASE_URI).path("raven/1.0/import/execution").post(ClientResponse.class, "{}");
+        assertEquals(response.getStatus(), 504);
+        assertEquals(requestCount.get(), 1);
+    }
+
+    @Test
+    public void testRetryOfNonIdempotentRequestOnTooManyRequests() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final Client client = createClient(requestCount, 429, 200);
+        final ClientResponse response = client.resource(BASE_URI).path("raven/1.0/import/execution").post(ClientResponse.class, "{}");
+        assertEquals(response.getStatus(), 200);
+        assertEquals(requestCount.get(), 2);
+    }
+
+    @Test
+    public void testRetryOnConnectionError() {
+        final AtomicInteger requestCount = new AtomicInteger();
+        final Client client = new Client(request -> {
+            if (requestCount.incrementAndGet() == 1) {
+                throw new ClientHandlerException("Connection reset");
+            }
+            return new ClientResponse(200, new InBoundHeaders(), new ByteArrayInputStream(new byte[0]), null);
+        });
+        client.addFilter(new RetryFilter(2, 1, 10));
+        final ClientResponse response = client.resource(BASE_URI).path("api/2/search").get(ClientResponse.class);
+        assertEquals(response.getStatus(), 200);
+        assertEquals(requestCount.get(), 2);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.jfr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TestExecutionImportEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jfr.TransitionChainEvent;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+public class XraySyncEventTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+
+    @Test
+    public void testImportAndTransitionEvents() throws Exception {
+        final Path recordingFile = Files.createTempFile("xray-sync", ".jfr");
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY); Recording recording = new Recording()) {
+            recording.enable(TestExecutionImportEvent.NAME);
+            recording.enable(TransitionChainEvent.NAME);
+            recording.start();
+
+            final XrayUtils xrayUtils = new XrayUtils(server.createWebResource());
+            xrayUtils.setImportMaxBytes(2 * 1024);
+            final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+            testExecutionImport.getInfo().setSummary("Recorded test execution");
+            for (int i = 0; i < 50; i++) {
+                final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun();
+                final XrayTestExecutionImport.TestRun.Info testInfo = new XrayTestExecutionImport.TestRun.Info();
+                testInfo.setSummary("Recorded test " + i);
+                testInfo.setProjectKey(PROJECT_KEY);
+                testRun.setTestInfo(testInfo);
+                testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+                testExecutionImport.addTest(testRun);
+            }
+            xrayUtils.importTestExecution(testExecutionImport);
+            final String testExecutionKey = testExecutionImport.getTestExecutionKey();
+            xrayUtils.performTransitionChain(testExecutionKey, new LinkedList<>(Arrays.asList(JiraStatusCategory.INDETERMINATE, JiraStatusCategory.DONE)));
+
+            recording.stop();
+            recording.dump(recordingFile);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+            final List<RecordedEvent> importEvents = filterEvents(events, TestExecutionImportEvent.NAME);
+            assertEquals(importEvents.size(), server.getRequestCount("POST raven/1.0/import/execution"));
+            assertTrue(importEvents.size() > 1);
+            assertEquals(importEvents.stream().filter(event -> event.getBoolean("created")).count(), 1);
+            assertEquals(importEvents.stream().mapToInt(event -> event.getInt("testRunCount")).sum(), 50);
+            importEvents.forEach(event -> {
+                assertEquals(event.getString("testExecutionKey"), testExecutionKey);
+                assertTrue(event.getLong("payloadBytes") > 0);
+            });
+
+            final List<RecordedEvent> transitionEvents = filterEvents(events, TransitionChainEvent.NAME);
+            assertEquals(transitionEvents.size(), 1);
+            assertEquals(transitionEvents.get(0).getString("issueKey"), testExecutionKey);
+            assertEquals(transitionEvents.get(0).getString("statusCategories"), "indeterminate,done");
+            assertEquals(transitionEvents.get(0).getInt("transitionCount"), 2);
+        } finally {
+            Files.deleteIfExists(recordingFile);
+        }
+    }
+
+    private List<RecordedEvent> filterEvents(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.jql;
+
+import static org.testng.Assert.assertEquals;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.DefaultJqlCondition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.OrJqlCondition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.SingleValue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.Operator;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.SummaryContainsExact;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.util.Arrays;
+import java.util.Collections;
+import org.testng.annotations.Test;
+
+public class OrJqlConditionTest extends AbstractTest {
+
+    @Test
+    public void testSingleCondition() {
+        final OrJqlCondition condition = new OrJqlCondition(Collections.singletonList(new SummaryContainsExact("bli")));
+        assertEquals(condition.createJql(), "summary ~ \\\"bli\\\"");
+    }
+
+    @Test
+    public void testMultipleConditions() {
+        final JqlQuery query = JqlQuery.create()
+                .addCondition(new ProjectEquals("SWFTE"))
+                .addCondition(new OrJqlCondition(Arrays.asList(new SummaryContainsExact("bli"), new SummaryContainsExact("bla blubb"))))
+                .build();
+        assertEquals(query.createJql(), "project = SWFTE AND (summary ~ \\\"bli\\\" OR summary ~ \"\\\"bla blubb\\\"\")");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDifferentFields() {
+        new OrJqlCondition(Arrays.asList(
+                new SummaryContainsExact("bli"),
+                new DefaultJqlCondition("description", Operator.Contains, new SingleValue("bla"))
+        ));
+    }
+}
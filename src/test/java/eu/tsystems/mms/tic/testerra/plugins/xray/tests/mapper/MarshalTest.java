@@ -28,10 +28,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
 import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.FileUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import javax.ws.rs.core.MediaType;
+import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -98,6 +101,23 @@ public class MarshalTest extends AbstractTest {
         Assert.assertTrue(result.contains("\"testKey\":\"BLA-123\""));
     }
 
+    @Test
+    public void testMarshalEvidenceFromFile() throws URISyntaxException, IOException {
+        final File file = new File(getClass().getResource("/test.zip").toURI());
+        final XrayTestExecutionImport.TestRun.Evidence evidence = new XrayTestExecutionImport.TestRun.Evidence(file);
+
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final String result = objectMapper.writeValueAsString(evidence);
+        final String expectedData = Base64.encodeBase64String(FileUtils.readFileToByteArray(file));
+        Assert.assertTrue(result.contains("\"data\":\"" + expectedData + "\""));
+        Assert.assertTrue(result.contains("\"filename\":\"test.zip\""));
+        Assert.assertEquals(evidence.getData(), expectedData);
+
+        final XrayTestExecutionImport.TestRun.Evidence unmarshalled = objectMapper.readValue(result, XrayTestExecutionImport.TestRun.Evidence.class);
+        Assert.assertEquals(unmarshalled.getData(), expectedData);
+        Assert.assertEquals(unmarshalled.getFilename(), "test.zip");
+    }
+
     @Test
     public void testUnmarshalExampleToObject() throws URISyntaxException, IOException {
         final ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,242 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.stub;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import com.sun.jersey.api.client.WebResource;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RateLimitFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.KeyIn;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JiraUtils;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class JiraStubServerTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+
+    @Test
+    public void testIssueLifecycle() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final JiraUtils jiraUtils = new JiraUtils(server.createWebResource());
+            final String issueKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST_EXECUTION, "Stub execution");
+
+            final JiraIssue issue = jiraUtils.getIssue(issueKey);
+            assertEquals(issue.getSummary(), "Stub execution");
+            assertEquals(issue.getStatus().getStatusCategory().getKey(), JiraStatusCategory.NEW.getKey());
+
+            issue.setSummary("Updated stub execution");
+            jiraUtils.createOrUpdateIssue(issue);
+            jiraUtils.performTransitionChain(issueKey, new LinkedList<>(Arrays.asList(JiraStatusCategory.INDETERMINATE, JiraStatusCategory.DONE)));
+
+            jiraUtils.uploadJsonAttachment(issueKey, "{}", "result.json");
+            final JiraIssue updatedIssue = jiraUtils.getIssue(issueKey);
+            assertEquals(updatedIssue.getSummary(), "Updated stub execution");
+            assertEquals(updatedIssue.getStatus().getStatusCategory().getKey(), JiraStatusCategory.DONE.getKey());
+            assertEquals(updatedIssue.getAttachments().size(), 1);
+
+            jiraUtils.deleteAllAttachments(issueKey);
+            assertTrue(jiraUtils.getIssue(issueKey).getAttachments().isEmpty());
+        }
+    }
+
+    @Test
+    public void testImportOfTenThousandTestRuns() throws Exception {
+        final int testRunCount = 10_000;
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final XrayUtils xrayUtils = new XrayUtils(server.createWebResource());
+            xrayUtils.setImportMaxBytes(256 * 1024);
+
+            final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+            testExecutionImport.getInfo().setSummary("Load test execution");
+            for (int i = 0; i < testRunCount; i++) {
+                final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun();
+                final XrayTestExecutionImport.TestRun.Info testInfo = new XrayTestExecutionImport.TestRun.Info();
+                testInfo.setSummary("Load test " + i);
+                testInfo.setProjectKey(PROJECT_KEY);
+                testRun.setTestInfo(testInfo);
+                testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+                testExecutionImport.addTest(testRun);
+            }
+
+            final long start = System.currentTimeMillis();
+            xrayUtils.importTestExecution(testExecutionImport);
+            final List<String> testKeys = testExecutionImport.getResultTestIssueImport().getSuccess().stream()
+                    .map(reference -> reference.getKey())
+                    .collect(Collectors.toList());
+            final long resolvedKeys = xrayUtils.searchIssuesByKeys(testKeys, Collections.singletonList("summary")).count();
+            final long duration = System.currentTimeMillis() - start;
+            log().info(String.format("Imported and resolved %d test runs in %d ms, requests: %s", testRunCount, duration, server.getRequestCounts()));
+
+            assertTrue(server.getRequestCount("POST raven/1.0/import/execution") > 1);
+            assertEquals(testKeys.size(), testRunCount);
+            assertEquals(resolvedKeys, testRunCount);
+            assertEquals(server.getTestRuns(testExecutionImport.getTestExecutionKey()).size(), testRunCount);
+            assertEquals(server.getIssueCount(), testRunCount + 1);
+        }
+    }
+
+    @Test
+    public void testSearchByKeysIgnoresMissingKeys() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final JiraUtils jiraUtils = new JiraUtils(server.createWebResource());
+            final List<String> issueKeys = new ArrayList<>();
+            for (int i = 0; i < 150; i++) {
+                issueKeys.add(server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test " + i));
+            }
+            issueKeys.add("SWFTE-1");
+
+            assertEquals(jiraUtils.searchIssuesByKeys(issueKeys, Collections.emptyList()).count(), 150);
+
+            final JqlQuery query = JqlQuery.create()
+                    .addCondition(new KeyIn("SWFTE-1"))
+                    .build();
+            // Jira rejects validated queries with unknown keys
+            assertThrows(UncheckedIOException.class, () -> jiraUtils.searchIssues(query).count());
+            assertEquals(server.getRequestCount("GET api/2/search"), 3);
+        }
+    }
+
+    @Test
+    public void testFailedSearchPageFailsStream() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final JiraUtils jiraUtils = new JiraUtils(server.createWebResource());
+            jiraUtils.setSearchPageSize(50);
+            final List<String> issueKeys = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                issueKeys.add(server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test " + i));
+            }
+
+            final JqlQuery query = JqlQuery.create()
+                    .addCondition(new KeyIn(issueKeys))
+                    .build();
+            final Iterator<JiraIssue> issues = jiraUtils.searchIssues(query).iterator();
+            for (int i = 0; i < 50; i++) {
+                issues.next();
+            }
+            server.setErrorRate(1, 500);
+            // A partial result must not look like a complete one
+            assertThrows(UncheckedIOException.class, issues::hasNext);
+        }
+    }
+
+    @Test
+    public void testSearchFirstIssueWithoutPrefetch() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final JiraUtils jiraUtils = new JiraUtils(server.createWebResource());
+            jiraUtils.setSearchPageSize(10);
+            jiraUtils.setSearchPrefetchEnabled(true);
+            for (int i = 0; i < 30; i++) {
+                server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test " + i);
+            }
+
+            final JqlQuery query = JqlQuery.create()
+                    .addCondition(new ProjectEquals(PROJECT_KEY))
+                    .build();
+            final Optional<JiraIssue> firstIssue = jiraUtils.searchFirstIssue(query, Collections.emptyList(), Function.identity());
+
+            assertTrue(firstIssue.isPresent());
+            assertEquals(server.getRequestCount("GET api/2/search"), 1);
+        }
+    }
+
+    @Test
+    public void testRetryOfInjectedErrors() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String issueKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Unstable test");
+            server.setLatency(1, 2);
+            server.setErrorRate(0.3, 503);
+
+            final WebResource webResource = server.createWebResource();
+            webResource.addFilter(new RetryFilter(20, 1, 5));
+            final JiraUtils jiraUtils = new JiraUtils(webResource);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(jiraUtils.getIssue(issueKey).getKey(), issueKey);
+            }
+
+            assertTrue(server.getInjectedErrorCount() > 0);
+            assertEquals(server.getRequestCount("GET api/2/issue/{key}"), 100 + server.getInjectedErrorCount());
+        }
+    }
+
+    @Test
+    public void testThrottling() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String issueKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Throttled test");
+            server.setMaxRequestsPerSecond(20);
+
+            // Throttled requests are retried after the Retry-After delay
+            final WebResource retryingResource = server.createWebResource();
+            retryingResource.addFilter(new RetryFilter(50, 10, 50));
+            final JiraUtils retryingJiraUtils = new JiraUtils(retryingResource);
+            for (int i = 0; i < 30; i++) {
+                assertEquals(retryingJiraUtils.getIssue(issueKey).getKey(), issueKey);
+            }
+            assertTrue(server.getThrottledRequestCount() > 0);
+
+            // Limited on client side in a new throttling window, no request exceeds the limit of the server
+            Thread.sleep(1000);
+            final int throttledRequests = server.getThrottledRequestCount();
+            final WebResource limitedResource = server.createWebResource();
+            limitedResource.addFilter(new RateLimitFilter(15, 1));
+            final JiraUtils limitedJiraUtils = new JiraUtils(limitedResource);
+            for (int i = 0; i < 30; i++) {
+                assertEquals(limitedJiraUtils.getIssue(issueKey).getKey(), issueKey);
+            }
+            assertEquals(server.getThrottledRequestCount(), throttledRequests);
+        }
+    }
+
+    @Test
+    public void testAddTestsToTestSet() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final XrayUtils xrayUtils = new XrayUtils(server.createWebResource());
+            final String testSetKey = server.createIssue("Test Set", "Stub test set");
+            final String testKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Member test");
+
+            xrayUtils.addTestsToTestSet(testSetKey, Collections.singletonList(testKey));
+            assertEquals(server.getTestSetTests(testSetKey), Collections.singleton(testKey));
+            assertFalse(server.getTestSetTests("SWFTE-1").contains(testKey));
+        }
+    }
+}
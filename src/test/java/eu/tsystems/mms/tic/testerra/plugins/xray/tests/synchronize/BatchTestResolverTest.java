@@ -0,0 +1,138 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.JqlQuery;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.IssueType;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.IssueTypeEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.KeyIn;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.SummaryContainsExact;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.BatchTestResolver;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class BatchTestResolverTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+    private static final String SEARCH_ENDPOINT = "GET api/2/search";
+
+    private JqlQuery createSummaryQuery(String summary) {
+        return JqlQuery.create()
+                .addCondition(new ProjectEquals(PROJECT_KEY))
+                .addCondition(new IssueTypeEquals(IssueType.Test))
+                .addCondition(new SummaryContainsExact(summary))
+                .build();
+    }
+
+    private Map<String, JqlQuery> createSummaryQueries(int count) {
+        final Map<String, JqlQuery> queries = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            queries.put("method" + i, createSummaryQuery("Test " + i));
+        }
+        return queries;
+    }
+
+    @Test
+    public void testMergeQueriesIntoOneSearch() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            for (int i = 0; i < 5; i++) {
+                server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test " + i);
+            }
+            final BatchTestResolver batchTestResolver = new BatchTestResolver(new XrayUtils(server.createWebResource()), Collections.emptyList(), 2000);
+
+            final Map<String, XrayTestIssue> foundTests = batchTestResolver.resolve(createSummaryQueries(5));
+
+            assertEquals(foundTests.size(), 5);
+            assertEquals(foundTests.get("method3").getSummary(), "Test 3");
+            assertEquals(server.getRequestCount(SEARCH_ENDPOINT), 1);
+        }
+    }
+
+    @Test
+    public void testMatchExactSummaryOnly() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String failureTestKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "testLoginFailure");
+            final BatchTestResolver batchTestResolver = new BatchTestResolver(new XrayUtils(server.createWebResource()), Collections.emptyList(), 2000);
+
+            final Map<String, JqlQuery> queries = new LinkedHashMap<>();
+            queries.put("testLogin", createSummaryQuery("testLogin"));
+            queries.put("testLoginFailure", createSummaryQuery("testLoginFailure"));
+            final Map<String, XrayTestIssue> foundTests = batchTestResolver.resolve(queries);
+
+            // The Test of the longer summary is found by both summaries, but belongs to its own query only
+            assertEquals(foundTests.get("testLoginFailure").getKey(), failureTestKey);
+            assertFalse(foundTests.containsKey("testLogin"));
+            assertEquals(server.getRequestCount(SEARCH_ENDPOINT), 1);
+        }
+    }
+
+    @Test
+    public void testSplitByJqlLength() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            for (int i = 0; i < 5; i++) {
+                server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test " + i);
+            }
+            // Common conditions + " AND (" + two summary conditions joined by " OR " + ")"
+            final String commonJql = JqlQuery.create()
+                    .addCondition(new ProjectEquals(PROJECT_KEY))
+                    .addCondition(new IssueTypeEquals(IssueType.Test))
+                    .build()
+                    .createJql();
+            final int summaryJqlLength = new SummaryContainsExact("Test 0").createJql().length();
+            final int maxJqlLength = commonJql.length() + 7 + 2 * (summaryJqlLength + 4);
+            final BatchTestResolver batchTestResolver = new BatchTestResolver(new XrayUtils(server.createWebResource()), Collections.emptyList(), maxJqlLength);
+
+            final Map<String, XrayTestIssue> foundTests = batchTestResolver.resolve(createSummaryQueries(5));
+
+            assertEquals(foundTests.size(), 5);
+            assertEquals(foundTests.get("method4").getSummary(), "Test 4");
+            assertEquals(server.getRequestCount(SEARCH_ENDPOINT), 3);
+        }
+    }
+
+    @Test
+    public void testSearchOtherQueriesOneByOne() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String testKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test 0");
+            final BatchTestResolver batchTestResolver = new BatchTestResolver(new XrayUtils(server.createWebResource()), Collections.emptyList(), 2000);
+
+            final Map<String, JqlQuery> queries = createSummaryQueries(2);
+            queries.put("byKey", JqlQuery.create().addCondition(new KeyIn(testKey)).build());
+            final Map<String, XrayTestIssue> foundTests = batchTestResolver.resolve(queries);
+
+            assertEquals(foundTests.get("method0").getKey(), testKey);
+            assertFalse(foundTests.containsKey("method1"));
+            assertEquals(foundTests.get("byKey").getKey(), testKey);
+            assertEquals(server.getRequestCount(SEARCH_ENDPOINT), 2);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.InFlightCache;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+public class InFlightCacheTest extends AbstractTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        final InFlightCache<String, String> cache = new InFlightCache<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loaderStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoader = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(16);
+
+        try {
+            final List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> cache.get("TestSetClass", () -> {
+                    loads.incrementAndGet();
+                    loaderStarted.countDown();
+                    try {
+                        releaseLoader.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "SWFTE-1";
+                })));
+            }
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals(result.get(5, TimeUnit.SECONDS), "SWFTE-1");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        final InFlightCache<String, String> cache = new InFlightCache<>();
+        try {
+            cache.get("TestSetClass", () -> {
+                throw new IllegalStateException("Jira not available");
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "Jira not available");
+        }
+        assertEquals(cache.size(), 0);
+        assertEquals(cache.get("TestSetClass", () -> "SWFTE-1"), "SWFTE-1");
+    }
+}
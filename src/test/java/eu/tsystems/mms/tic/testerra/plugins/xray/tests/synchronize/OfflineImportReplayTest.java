@@ -0,0 +1,133 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.OfflineImportReplay;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.TestRunSpool;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class OfflineImportReplayTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+
+    private XrayTestExecutionImport.TestRun createTestRun(String testKey) {
+        final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun(testKey);
+        testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+        return testRun;
+    }
+
+    /**
+     * Writes a spool with two pending test runs of the given Test Execution, like a crashed execution
+     */
+    private File writeSpool(File directory, JiraStubServer server, String testExecutionKey) throws IOException {
+        final File file = new File(directory, "spool.jsonl");
+        final TestRunSpool spool = new TestRunSpool(file);
+        spool.open();
+        spool.append(createTestRun(server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Spooled test 1")));
+        spool.append(createTestRun(server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Spooled test 2")));
+        spool.setTestExecutionKey(testExecutionKey);
+        spool.close();
+        return file;
+    }
+
+    /**
+     * Writes an import of a new Test Execution with one test run
+     */
+    private File writeExport(File directory, JiraStubServer server) throws IOException {
+        final File file = new File(directory, "export.json");
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+        testExecutionImport.getInfo().setSummary("Exported execution");
+        testExecutionImport.getInfo().setProject(PROJECT_KEY);
+        testExecutionImport.addTest(createTestRun(server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Exported test")));
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.writeValue(file, testExecutionImport);
+        return file;
+    }
+
+    @Test
+    public void testReplaySpoolAndExport() throws Exception {
+        final File directory = Files.createTempDirectory("xray-replay").toFile();
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String testExecutionKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST_EXECUTION, "Spooled execution");
+            final File spoolFile = writeSpool(directory, server, testExecutionKey);
+            writeExport(directory, server);
+            final int issueCount = server.getIssueCount();
+
+            final OfflineImportReplay replay = new OfflineImportReplay(new XrayUtils(server.createWebResource()), 2, 0);
+            final OfflineImportReplay.Summary summary = replay.replay(Collections.singletonList(directory));
+
+            assertEquals(summary.getImports(), 2);
+            assertEquals(summary.getFailedImports(), 0);
+            assertEquals(summary.getImportedTestRuns(), 3);
+            assertEquals(server.getTestRuns(testExecutionKey).size(), 2);
+            // The export created its Test Execution
+            assertEquals(server.getIssueCount(), issueCount + 1);
+            // All spooled test runs are done
+            assertFalse(spoolFile.exists());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testKeepSpoolOfFailedImports() throws Exception {
+        final File directory = Files.createTempDirectory("xray-replay").toFile();
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String testExecutionKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST_EXECUTION, "Spooled execution");
+            final File spoolFile = writeSpool(directory, server, testExecutionKey);
+            server.setErrorRate(1, 500);
+
+            final OfflineImportReplay.Summary summary = new OfflineImportReplay(new XrayUtils(server.createWebResource()), 1, 0)
+                    .replay(Collections.singletonList(spoolFile));
+
+            assertEquals(summary.getFailedImports(), 1);
+            assertEquals(summary.getFailedTestRuns(), 2);
+            assertTrue(spoolFile.exists());
+
+            // The pending test runs are replayed by the next run
+            server.setErrorRate(0, 500);
+            final OfflineImportReplay.Summary retriedSummary = new OfflineImportReplay(new XrayUtils(server.createWebResource()), 1, 0)
+                    .replay(Collections.singletonList(spoolFile));
+            assertEquals(retriedSummary.getImportedTestRuns(), 2);
+            assertEquals(server.getTestRuns(testExecutionKey).size(), 2);
+            assertFalse(spoolFile.exists());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
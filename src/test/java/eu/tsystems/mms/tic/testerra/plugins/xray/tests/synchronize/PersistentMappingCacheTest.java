@@ -0,0 +1,122 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.PersistentMappingCache;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+public class PersistentMappingCacheTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+    private static final long TIME_TO_LIVE = TimeUnit.HOURS.toMillis(1);
+
+    private File createCacheFile() throws IOException {
+        final File file = Files.createTempFile("xray-mapping-cache", ".json").toFile();
+        Files.delete(file.toPath());
+        file.deleteOnExit();
+        return file;
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        final File file = createCacheFile();
+        final PersistentMappingCache cache = new PersistentMappingCache(file, TIME_TO_LIVE);
+        cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.testMethod", new JiraIssue("SWFTE-1"));
+        cache.put(PersistentMappingCache.Type.TEST_SET, PROJECT_KEY, "MyTest", new JiraIssue("SWFTE-2"));
+        // Issues without key are not cached
+        cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.newMethod", new JiraIssue());
+        cache.save();
+
+        final PersistentMappingCache loadedCache = new PersistentMappingCache(file, TIME_TO_LIVE);
+        loadedCache.load();
+        assertEquals(loadedCache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.testMethod"), Optional.of("SWFTE-1"));
+        assertEquals(loadedCache.getIssueKey(PersistentMappingCache.Type.TEST_SET, PROJECT_KEY, "MyTest"), Optional.of("SWFTE-2"));
+        assertFalse(loadedCache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.newMethod").isPresent());
+        assertFalse(loadedCache.getIssueKey(PersistentMappingCache.Type.TEST, "OTHER", "MyTest.testMethod").isPresent());
+    }
+
+    @Test
+    public void testDropExpiredEntriesOnLoad() throws Exception {
+        final File file = createCacheFile();
+        final PersistentMappingCache cache = new PersistentMappingCache(file, TIME_TO_LIVE);
+        cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.testMethod", new JiraIssue("SWFTE-1"));
+        cache.save();
+        Thread.sleep(10);
+
+        final PersistentMappingCache expiredCache = new PersistentMappingCache(file, 1);
+        expiredCache.load();
+        assertFalse(expiredCache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "MyTest.testMethod").isPresent());
+    }
+
+    @Test
+    public void testValidateAgainstJira() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String unchangedKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Unchanged test");
+            final String modifiedKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Modified test");
+            final XrayUtils xrayUtils = new XrayUtils(server.createWebResource());
+
+            final PersistentMappingCache cache = new PersistentMappingCache(createCacheFile(), TIME_TO_LIVE);
+            cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "unchanged", new JiraIssue(unchangedKey));
+            // Cached with a modification date, which differs from the current one
+            final JiraIssue modifiedIssue = new JiraIssue(modifiedKey);
+            modifiedIssue.getFields().put(Fields.UPDATED.getFieldName(), "2021-01-01T00:00:00.000+0100");
+            cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "modified", modifiedIssue);
+            cache.put(PersistentMappingCache.Type.TEST_SET, PROJECT_KEY, "deleted", new JiraIssue("SWFTE-999"));
+
+            cache.validate(xrayUtils);
+            cache.validate(xrayUtils);
+
+            assertEquals(cache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "unchanged"), Optional.of(unchangedKey));
+            assertFalse(cache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "modified").isPresent());
+            assertFalse(cache.getIssueKey(PersistentMappingCache.Type.TEST_SET, PROJECT_KEY, "deleted").isPresent());
+            // Validated once only
+            assertEquals(server.getRequestCount("GET api/2/search"), 1);
+        }
+    }
+
+    @Test
+    public void testDropAllEntriesIfValidationFails() throws Exception {
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final String testKey = server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, "Test");
+            server.setErrorRate(1, 500);
+
+            final PersistentMappingCache cache = new PersistentMappingCache(createCacheFile(), TIME_TO_LIVE);
+            cache.put(PersistentMappingCache.Type.TEST, PROJECT_KEY, "test", new JiraIssue(testKey));
+            cache.validate(new XrayUtils(server.createWebResource()));
+
+            assertFalse(cache.getIssueKey(PersistentMappingCache.Type.TEST, PROJECT_KEY, "test").isPresent());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.stub.JiraStubServer;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.ShardCoordinator;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class ShardCoordinatorTest extends AbstractTest {
+
+    private static final String PROJECT_KEY = "SWFTE";
+
+    private List<ShardCoordinator> createShards(File directory, int shardCount) {
+        final List<ShardCoordinator> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ShardCoordinator(directory, "shard" + i, shardCount));
+        }
+        return shards;
+    }
+
+    private XrayTestExecutionImport createImport(String... testKeys) {
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+        for (String testKey : testKeys) {
+            final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun(testKey);
+            testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+            testExecutionImport.addTest(testRun);
+        }
+        return testExecutionImport;
+    }
+
+    @Test
+    public void testElectLastFinishingShard() throws IOException {
+        final File directory = Files.createTempDirectory("xray-shards").toFile();
+        try {
+            final List<ShardCoordinator> shards = createShards(directory, 3);
+
+            assertFalse(shards.get(0).finishShard());
+            assertFalse(shards.get(1).finishShard());
+            // Finishing again does not count twice
+            assertFalse(shards.get(1).finishShard());
+            assertTrue(shards.get(2).finishShard());
+            // The lock is taken already
+            assertFalse(shards.get(0).finishShard());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testElectSingleAggregator() throws Exception {
+        final File directory = Files.createTempDirectory("xray-shards").toFile();
+        final int shardCount = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(shardCount);
+        try {
+            final List<ShardCoordinator> shards = createShards(directory, shardCount);
+            for (ShardCoordinator shard : shards.subList(1, shardCount)) {
+                shard.finishShard();
+            }
+
+            // All shards see the complete count of done markers and race for the lock
+            final List<Callable<Boolean>> finishes = new ArrayList<>();
+            shards.forEach(shard -> finishes.add(shard::finishShard));
+            int aggregators = 0;
+            for (Future<Boolean> elected : executor.invokeAll(finishes)) {
+                if (elected.get()) {
+                    aggregators++;
+                }
+            }
+            assertEquals(aggregators, 1);
+        } finally {
+            executor.shutdownNow();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testIgnoreIncompleteFiles() throws IOException {
+        final File directory = Files.createTempDirectory("xray-shards").toFile();
+        try {
+            final List<ShardCoordinator> shards = createShards(directory, 2);
+            shards.get(0).writeTestRuns(createImport("SWFTE-100", "SWFTE-101"));
+            shards.get(1).writeTestRuns(createImport("SWFTE-102"));
+            // A shard being killed while writing its test runs
+            Files.write(new File(directory, "runs-shard1-00002.json123.tmp").toPath(), "{\"tests\":[{\"testKey\":".getBytes(StandardCharsets.UTF_8));
+
+            final List<Path> testRunFiles = shards.get(0).listTestRunFiles();
+            assertEquals(testRunFiles.size(), 2);
+            int testRunCount = 0;
+            for (Path testRunFile : testRunFiles) {
+                testRunCount += shards.get(0).readTestRuns(testRunFile).getTests().size();
+            }
+            assertEquals(testRunCount, 3);
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+
+    @Test
+    public void testAggregateIntoSingleTestExecution() throws Exception {
+        final File directory = Files.createTempDirectory("xray-shards").toFile();
+        try (JiraStubServer server = new JiraStubServer(PROJECT_KEY)) {
+            final List<ShardCoordinator> shards = createShards(directory, 3);
+            ShardCoordinator aggregator = null;
+            for (ShardCoordinator shard : shards) {
+                shard.writeTestRuns(createImport(
+                        server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, shard.getShardId() + " test 1"),
+                        server.createIssue(JiraStubServer.ISSUE_TYPE_TEST, shard.getShardId() + " test 2")
+                ));
+                if (shard.finishShard()) {
+                    aggregator = shard;
+                }
+            }
+            assertEquals(aggregator, shards.get(2));
+            final int issueCount = server.getIssueCount();
+
+            final XrayTestExecutionIssue executionIssue = new XrayTestExecutionIssue();
+            executionIssue.getProject().setKey(PROJECT_KEY);
+            executionIssue.setSummary("Sharded execution");
+            final int testRunCount = aggregator.importTestRuns(new XrayUtils(server.createWebResource()), executionIssue, new Date());
+
+            assertEquals(testRunCount, 6);
+            // The first file created the Test Execution, which received the test runs of all shards
+            assertEquals(server.getIssueCount(), issueCount + 1);
+            assertEquals(server.getTestRuns(executionIssue.getKey()).size(), 6);
+            assertTrue(aggregator.listTestRunFiles().isEmpty());
+            assertEquals(new String(Files.readAllBytes(new File(directory, "execution.key").toPath()), StandardCharsets.UTF_8), executionIssue.getKey());
+        } finally {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.TestRunSpool;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class TestRunSpoolTest extends AbstractTest {
+
+    private XrayTestExecutionImport.TestRun createTestRun(String testKey) {
+        final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun(testKey);
+        testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+        return testRun;
+    }
+
+    @Test
+    public void testReplayAfterCrash() throws IOException {
+        final File directory = Files.createTempDirectory("xray-spool").toFile();
+        final File file = new File(directory, "spool.jsonl");
+        // Spools are not closed until the end, like a killed JVM
+        final TestRunSpool crashedSpool = new TestRunSpool(file);
+        final TestRunSpool replayingSpool = new TestRunSpool(file);
+        final TestRunSpool finalSpool = new TestRunSpool(file);
+        try {
+            crashedSpool.open();
+            final XrayTestExecutionImport.TestRun importedRun = createTestRun("SWFTE-1");
+            crashedSpool.append(importedRun);
+            crashedSpool.append(createTestRun("SWFTE-2"));
+            crashedSpool.setTestExecutionKey("SWFTE-4");
+            crashedSpool.markDone(Collections.singletonList(importedRun));
+
+            replayingSpool.open();
+            final List<TestRunSpool.PendingExecution> pendingExecutions = replayingSpool.getPendingExecutions();
+            assertEquals(pendingExecutions.size(), 1);
+            final TestRunSpool.PendingExecution pendingExecution = pendingExecutions.get(0);
+            assertEquals(pendingExecution.getTestExecutionKey(), "SWFTE-4");
+            assertEquals(pendingExecution.getTestRuns().size(), 1);
+            final Map.Entry<String, XrayTestExecutionImport.TestRun> pendingRun = pendingExecution.getTestRuns().entrySet().iterator().next();
+            assertEquals(pendingRun.getValue().getTestKey(), "SWFTE-2");
+
+            // The replay marks the run of the previous session as done in its own session
+            replayingSpool.adopt(pendingRun.getKey(), pendingRun.getValue());
+            replayingSpool.markDone(Collections.singletonList(pendingRun.getValue()));
+
+            finalSpool.open();
+            assertTrue(finalSpool.getPendingExecutions().isEmpty());
+        } finally {
+            for (TestRunSpool spool : Arrays.asList(crashedSpool, replayingSpool, finalSpool)) {
+                spool.close();
+            }
+        }
+        assertFalse(file.exists());
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Test
+    public void testSpoolEvidenceFileReferences() throws IOException {
+        final File directory = Files.createTempDirectory("xray-spool").toFile();
+        final File file = new File(directory, "spool.jsonl");
+        final File evidenceFile = new File(directory, "screenshot.png");
+        FileUtils.writeStringToFile(evidenceFile, "png", StandardCharsets.UTF_8);
+        final XrayTestExecutionImport.TestRun testRun = createTestRun("SWFTE-1");
+        testRun.addEvidence(new XrayTestExecutionImport.TestRun.Evidence(evidenceFile));
+        // Serializing by the shared mapper must not affect the spool, which is configured by a mixin
+        JsonCodec.WRITER.writeValueAsString(testRun);
+
+        final TestRunSpool spool = new TestRunSpool(file);
+        final TestRunSpool replayingSpool = new TestRunSpool(file);
+        try {
+            spool.open();
+            spool.append(testRun);
+            assertTrue(FileUtils.readFileToString(file, StandardCharsets.UTF_8).contains(evidenceFile.getAbsolutePath()));
+
+            replayingSpool.open();
+            final XrayTestExecutionImport.TestRun pendingRun = replayingSpool.getPendingExecutions().get(0).getTestRuns().values().iterator().next();
+            assertEquals(pendingRun.getEvidences().iterator().next().getFile().orElse(null), evidenceFile.getAbsoluteFile());
+        } finally {
+            spool.close();
+            replayingSpool.close();
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.synchronize;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestSetIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.synchronize.TestSetMembership;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.testng.annotations.Test;
+
+public class TestSetMembershipTest extends AbstractTest {
+
+    private TestSetMembership createMembership() {
+        final XrayTestSetIssue testSetIssue = new XrayTestSetIssue();
+        testSetIssue.setKey("SWFTE-8");
+        testSetIssue.setTestKeys(Arrays.asList("SWFTE-4", "SWFTE-5"));
+        return new TestSetMembership(testSetIssue);
+    }
+
+    @Test
+    public void testTrackAddedTestKeys() {
+        final TestSetMembership testSetMembership = createMembership();
+
+        assertEquals(testSetMembership.addTestKeys(Arrays.asList("SWFTE-5", "SWFTE-6", "SWFTE-6")), Collections.singletonList("SWFTE-6"));
+        assertTrue(testSetMembership.contains("SWFTE-4"));
+        assertTrue(testSetMembership.contains("SWFTE-6"));
+        assertEquals(testSetMembership.size(), 3);
+        assertEquals(testSetMembership.getAddedTestKeys(), Collections.singletonList("SWFTE-6"));
+        assertEquals(testSetMembership.getTestSetIssue().getTestKeys(), Arrays.asList("SWFTE-4", "SWFTE-5", "SWFTE-6"));
+    }
+
+    @Test
+    public void testKeepKeysAddedDuringSynchronization() {
+        final TestSetMembership testSetMembership = createMembership();
+        testSetMembership.addTestKeys(Collections.singletonList("SWFTE-6"));
+
+        final List<String> synchronizedTestKeys = testSetMembership.getAddedTestKeys();
+        testSetMembership.addTestKeys(Collections.singletonList("SWFTE-7"));
+        testSetMembership.markSynchronized(synchronizedTestKeys);
+
+        assertTrue(testSetMembership.isFieldsSynchronized());
+        assertEquals(testSetMembership.getAddedTestKeys(), Collections.singletonList("SWFTE-7"));
+    }
+
+    @Test
+    public void testKeepQueuedWhileKeysAddedDuringSynchronization() {
+        final TestSetMembership testSetMembership = createMembership();
+        final Queue<TestSetMembership> syncQueue = new ConcurrentLinkedQueue<>();
+        testSetMembership.addTestKeys(Collections.singletonList("SWFTE-6"));
+        testSetMembership.addToQueue(syncQueue);
+
+        final List<String> synchronizedTestKeys = testSetMembership.getAddedTestKeys();
+        // Added by another method while the Test Set is being synchronized
+        testSetMembership.addTestKeys(Collections.singletonList("SWFTE-7"));
+        testSetMembership.addToQueue(syncQueue);
+        testSetMembership.markSynchronized(synchronizedTestKeys);
+
+        assertFalse(testSetMembership.removeFromQueueIfSynchronized(syncQueue));
+        assertEquals(syncQueue.size(), 1);
+        assertEquals(testSetMembership.getAddedTestKeys(), Collections.singletonList("SWFTE-7"));
+
+        testSetMembership.markSynchronized(testSetMembership.getAddedTestKeys());
+        assertTrue(testSetMembership.removeFromQueueIfSynchronized(syncQueue));
+        assertTrue(syncQueue.isEmpty());
+    }
+
+    @Test
+    public void testReplaceNewTestKeys() {
+        final TestSetMembership testSetMembership = createMembership();
+        testSetMembership.addTestKeys(Collections.singletonList("_NEW_.My Test"));
+
+        testSetMembership.replaceTestKeys(Collections.singletonMap("_NEW_.My Test", "SWFTE-9"));
+
+        assertFalse(testSetMembership.contains("_NEW_.My Test"));
+        assertTrue(testSetMembership.contains("SWFTE-9"));
+        assertEquals(testSetMembership.getAddedTestKeys(), Collections.singletonList("SWFTE-9"));
+        assertEquals(testSetMembership.getTestSetIssue().getTestKeys(), Arrays.asList("SWFTE-4", "SWFTE-5", "SWFTE-9"));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraKeyReference;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.annotations.Test;
+
+/**
+ * Imports exceeding the maximum size are split into chunks, which are imported one after another into the same Test Execution.
+ */
+public class ChunkedImportTest extends AbstractTest {
+
+    private static final String CREATED_RESULT = "{\"testExecIssue\":{\"key\":\"SWFTE-4\"},\"testIssues\":{\"success\":[{\"key\":\"SWFTE-100\"}]}}";
+    private static final String UPDATED_RESULT = "{\"testExecIssue\":{\"key\":\"SWFTE-4\"}}";
+
+    /**
+     * Answers the imports with the given responses in order
+     */
+    private static class FakeXray extends TerminatingClientHandler {
+        private final LinkedList<String> responses = new LinkedList<>();
+        private int requestCount = 0;
+
+        private FakeXray(String... responses) {
+            this.responses.addAll(Arrays.asList(responses));
+        }
+
+        @Override
+        public ClientResponse handle(ClientRequest request) {
+            try {
+                getRequestEntityWriter(request).writeRequestEntity(new ByteArrayOutputStream());
+            } catch (IOException e) {
+                throw new ClientHandlerException(e);
+            }
+            requestCount++;
+            final String body = responses.isEmpty() ? null : responses.removeFirst();
+            final int status = body == null ? 500 : 200;
+            return new ClientResponse(status, new InBoundHeaders(), new ByteArrayInputStream(StringUtils.defaultString(body).getBytes(StandardCharsets.UTF_8)), getMessageBodyWorkers());
+        }
+    }
+
+    private XrayUtils createXrayUtils(FakeXray fakeXray) {
+        final XrayUtils xrayUtils = new XrayUtils(new Client(fakeXray).resource("http://localhost/jira/rest/"));
+        // Fits a single test run per chunk
+        xrayUtils.setImportMaxBytes(1500);
+        return xrayUtils;
+    }
+
+    private XrayTestExecutionImport createImport(int testRuns) {
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+        testExecutionImport.getInfo().setSummary("Chunked execution");
+        for (int i = 0; i < testRuns; i++) {
+            final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun("SWFTE-" + (100 + i));
+            testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+            testRun.setComment(StringUtils.repeat('A', 1000));
+            testExecutionImport.addTest(testRun);
+        }
+        return testExecutionImport;
+    }
+
+    @Test
+    public void testKeepResultsOfPreviousChunks() throws IOException {
+        final FakeXray fakeXray = new FakeXray(CREATED_RESULT, UPDATED_RESULT);
+        final XrayTestExecutionImport testExecutionImport = createImport(2);
+
+        createXrayUtils(fakeXray).importTestExecution(testExecutionImport);
+
+        assertEquals(fakeXray.requestCount, 2);
+        assertEquals(testExecutionImport.getTestExecutionKey(), "SWFTE-4");
+        final List<String> successKeys = testExecutionImport.getResultTestIssueImport().getSuccess().stream()
+                .map(JiraKeyReference::getKey)
+                .collect(Collectors.toList());
+        assertEquals(successKeys, Arrays.asList("SWFTE-100"));
+    }
+
+    @Test
+    public void testKeepTestExecutionKeyOnFailingChunk() {
+        final FakeXray fakeXray = new FakeXray(CREATED_RESULT);
+        final XrayTestExecutionImport testExecutionImport = createImport(2);
+        final List<XrayTestExecutionImport.TestRun> importedTestRuns = new ArrayList<>();
+
+        assertThrows(IOException.class, () -> createXrayUtils(fakeXray).importTestExecution(testExecutionImport, importedTestRuns::addAll));
+
+        assertEquals(fakeXray.requestCount, 2);
+        assertEquals(testExecutionImport.getTestExecutionKey(), "SWFTE-4");
+        assertEquals(importedTestRuns.size(), 1);
+    }
+}
@@ -31,6 +31,7 @@ import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.KeyInTestSetTest
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.ProjectEquals;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestType;
 import eu.tsystems.mms.tic.testerra.plugins.xray.jql.predefined.TestTypeEquals;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.Fields;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatus;
 import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
@@ -47,6 +48,7 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
@@ -54,6 +56,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 public class JiraUtilsTest extends AbstractTest implements Loggable {
@@ -268,4 +271,32 @@ public class JiraUtilsTest extends AbstractTest implements Loggable {
         final List<String> foundKeys = jiraIssues.stream().map(JiraIssue::getKey).collect(Collectors.toList());
         assertTrue(foundKeys.containsAll(Arrays.asList("SWFTE-4", "SWFTE-5", "SWFTE-6")));
     }
+
+    @Test
+    public void testSearchIssuesPaged() {
+        final JqlQuery jqlQuery = JqlQuery.create()
+                .addCondition(new ProjectEquals("SWFTE"))
+                .addCondition(new TestTypeEquals(TestType.AutomatedGeneric))
+                .build();
+        final Set<String> allKeys = jiraUtils.searchIssues(jqlQuery).map(JiraIssue::getKey).collect(Collectors.toSet());
+
+        final JiraUtils pagedJiraUtils = new JiraUtils(webResource);
+        pagedJiraUtils.setSearchPageSize(2);
+        pagedJiraUtils.setSearchPrefetchEnabled(true);
+        final List<String> pagedKeys = pagedJiraUtils.searchIssues(jqlQuery).map(JiraIssue::getKey).collect(Collectors.toList());
+
+        assertTrue(allKeys.size() > 2);
+        assertEquals(pagedKeys.size(), allKeys.size());
+        assertEquals(new HashSet<>(pagedKeys), allKeys);
+    }
+
+    @Test
+    public void testSearchIssuesByKeys() {
+        final List<JiraIssue> jiraIssues = jiraUtils.searchIssuesByKeys(Arrays.asList("SWFTE-4", "SWFTE-5", "SWFTE-4"), Collections.singletonList(Fields.SUMMARY.getFieldName()))
+                .collect(Collectors.toList());
+        final List<String> foundKeys = jiraIssues.stream().map(JiraIssue::getKey).collect(Collectors.toList());
+        assertEquals(new HashSet<>(foundKeys), new HashSet<>(Arrays.asList("SWFTE-4", "SWFTE-5")));
+        assertEquals(foundKeys.size(), 2);
+        jiraIssues.forEach(jiraIssue -> assertNotNull(jiraIssue.getSummary()));
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.util;
+
+import static org.testng.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssue;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraIssuesSearchResult;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraTransition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JsonCodec;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.Test;
+
+public class JsonCodecTest extends AbstractTest {
+
+    @Test
+    public void testWriteTransitionWithRootName() throws Exception {
+        assertEquals(JsonCodec.JIRA_TRANSITION_WRITER.writeValueAsString(new JiraTransition("11")), "{\"transition\":{\"id\":\"11\"}}");
+        // The shared mapper is not affected by the writer configuration
+        assertEquals(JsonCodec.WRITER.writeValueAsString(new JiraTransition("11")), "{\"id\":\"11\"}");
+    }
+
+    @Test
+    public void testReadIgnoresUnknownProperties() throws Exception {
+        final JiraIssue issue = JsonCodec.JIRA_ISSUE_READER.readValue("{\"key\":\"SWFTE-1\",\"unknown\":true,\"fields\":{\"summary\":\"My Test\"}}");
+        assertEquals(issue.getKey(), "SWFTE-1");
+        assertEquals(issue.getSummary(), "My Test");
+
+        final JiraIssuesSearchResult searchResult = JsonCodec.JIRA_ISSUES_SEARCH_RESULT_READER.readValue("{\"total\":1,\"expand\":\"names\",\"issues\":[{\"key\":\"SWFTE-1\"}]}");
+        assertEquals(searchResult.getTotal(), 1);
+        assertEquals(searchResult.getIssues().iterator().next().getKey(), "SWFTE-1");
+    }
+
+    @Test
+    public void testSkipEvidenceOfMissingFile() throws Exception {
+        final File evidenceFile = File.createTempFile("screenshot", ".png");
+        FileUtils.writeStringToFile(evidenceFile, "png", StandardCharsets.UTF_8);
+        final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun("SWFTE-1");
+        testRun.addEvidence(new XrayTestExecutionImport.TestRun.Evidence(evidenceFile));
+        final XrayTestExecutionImport.TestRun.Evidence dataEvidence = new XrayTestExecutionImport.TestRun.Evidence();
+        dataEvidence.setData("cG5n");
+        dataEvidence.setFilename("log.txt");
+        testRun.addEvidence(dataEvidence);
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport("SWFTE-4");
+        testExecutionImport.addTest(testRun);
+        Files.delete(evidenceFile.toPath());
+
+        final JsonNode tests = JsonCodec.getObjectMapper().readTree(JsonCodec.TEST_EXECUTION_IMPORT_WRITER.writeValueAsString(testExecutionImport)).path("tests");
+
+        final JsonNode evidences = tests.get(0).path("evidences");
+        assertEquals(evidences.size(), 1);
+        assertEquals(evidences.get(0).path("filename").asText(), "log.txt");
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.util;
+
+import static org.testng.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.connect.filter.RetryFilter;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.XrayUtils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.testng.annotations.Test;
+
+/**
+ * Imports are posted as streamed JSON entities, which have to be written again on retries.
+ */
+public class JsonStreamingEntityTest extends AbstractTest {
+
+    private static final String IMPORT_RESULT = "{\"testExecIssue\":{\"key\":\"SWFTE-4\"}}";
+
+    /**
+     * Rejects the first import with 503 and records the written bodies.
+     * Terminates the client to get the message body writers injected, which write the request entities.
+     */
+    private static class FakeXray extends TerminatingClientHandler {
+        private final List<String> bodies = new ArrayList<>();
+
+        @Override
+        public ClientResponse handle(ClientRequest request) {
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            try {
+                getRequestEntityWriter(request).writeRequestEntity(outputStream);
+            } catch (IOException e) {
+                throw new ClientHandlerException(e);
+            }
+            bodies.add(new String(outputStream.toByteArray(), StandardCharsets.UTF_8));
+
+            final InBoundHeaders headers = new InBoundHeaders();
+            headers.putSingle("Retry-After", "0");
+            final int status = bodies.size() == 1 ? 503 : 200;
+            final String body = status == 200 ? IMPORT_RESULT : "";
+            return new ClientResponse(status, headers, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), getMessageBodyWorkers());
+        }
+    }
+
+    @Test
+    public void testWriteAgainOnRetry() throws Exception {
+        final FakeXray fakeXray = new FakeXray();
+        final Client client = new Client(fakeXray);
+        client.addFilter(new RetryFilter(1, 1, 10));
+        final XrayUtils xrayUtils = new XrayUtils(client.resource("http://localhost/jira/rest/"));
+
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport((String) null);
+        testExecutionImport.getInfo().setSummary("Streamed execution");
+        for (int i = 0; i < 3; i++) {
+            final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun("SWFTE-" + (100 + i));
+            testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+            testExecutionImport.addTest(testRun);
+        }
+        xrayUtils.importTestExecution(testExecutionImport);
+
+        assertEquals(fakeXray.bodies.size(), 2);
+        assertEquals(fakeXray.bodies.get(1), fakeXray.bodies.get(0));
+        final JsonNode body = new ObjectMapper().readTree(fakeXray.bodies.get(1));
+        assertEquals(body.path("info").path("summary").asText(), "Streamed execution");
+        assertEquals(body.path("tests").size(), 3);
+        assertEquals(testExecutionImport.getTestExecutionKey(), "SWFTE-4");
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.xray.XrayTestExecutionImport;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.TestExecutionImportChunker;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class TestExecutionImportChunkerTest extends AbstractTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TestExecutionImportChunkerTest() {
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    private XrayTestExecutionImport createImport(int testRuns, int evidenceSize) {
+        final XrayTestExecutionImport testExecutionImport = new XrayTestExecutionImport("SWFTE-4");
+        testExecutionImport.getInfo().setSummary("Chunked execution");
+        for (int i = 0; i < testRuns; i++) {
+            final XrayTestExecutionImport.TestRun testRun = new XrayTestExecutionImport.TestRun("SWFTE-" + (100 + i));
+            testRun.setStatus(XrayTestExecutionImport.TestRun.Status.PASS);
+            final XrayTestExecutionImport.TestRun.Evidence evidence = new XrayTestExecutionImport.TestRun.Evidence();
+            evidence.setData(StringUtils.repeat('A', evidenceSize));
+            evidence.setFilename("screenshot.png");
+            testRun.addEvidence(evidence);
+            testExecutionImport.addTest(testRun);
+        }
+        return testExecutionImport;
+    }
+
+    @Test
+    public void testEstimateSize() throws IOException {
+        final XrayTestExecutionImport testExecutionImport = createImport(1, 1000);
+        final XrayTestExecutionImport.TestRun testRun = testExecutionImport.getTests().iterator().next();
+        final TestExecutionImportChunker chunker = new TestExecutionImportChunker(objectMapper, 0);
+
+        final long serializedSize = objectMapper.writeValueAsString(testRun).length();
+        final long estimatedSize = chunker.estimateSize(testRun);
+        Assert.assertTrue(estimatedSize >= serializedSize, String.format("Estimated %d < serialized %d", estimatedSize, serializedSize));
+        Assert.assertTrue(estimatedSize < serializedSize + 100, String.format("Estimated %d, serialized %d", estimatedSize, serializedSize));
+    }
+
+    @Test
+    public void testSplitByBudget() throws IOException {
+        final XrayTestExecutionImport testExecutionImport = createImport(10, 1000);
+        final List<XrayTestExecutionImport> chunks = new TestExecutionImportChunker(objectMapper, 3500).split(testExecutionImport);
+
+        Assert.assertTrue(chunks.size() > 1);
+        Assert.assertEquals(chunks.stream().mapToInt(chunk -> chunk.getTests().size()).sum(), 10);
+        for (XrayTestExecutionImport chunk : chunks) {
+            Assert.assertEquals(chunk.getTestExecutionKey(), "SWFTE-4");
+            Assert.assertEquals(chunk.getInfo().getSummary(), "Chunked execution");
+            Assert.assertTrue(objectMapper.writeValueAsString(chunk).length() <= 3500);
+        }
+    }
+
+    @Test
+    public void testSingleChunkWithinBudget() throws IOException {
+        final XrayTestExecutionImport testExecutionImport = createImport(3, 100);
+        final List<XrayTestExecutionImport> chunks = new TestExecutionImportChunker(objectMapper, 1024 * 1024).split(testExecutionImport);
+        Assert.assertEquals(chunks.size(), 1);
+        Assert.assertEquals(chunks.get(0).getTests().size(), 3);
+    }
+}
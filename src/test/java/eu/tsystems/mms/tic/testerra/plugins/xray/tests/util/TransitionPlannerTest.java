@@ -0,0 +1,201 @@
+/*
+ * Testerra Xray-Connector
+ *
+ * (C) 2021, Mike Reiche,  T-Systems MMS GmbH, Deutsche Telekom AG
+ *
+ * Deutsche Telekom AG and all other contributors /
+ * copyright owners license this file to you under the Apache
+ * License, Version 2.0 (the "License"); you may not use this
+ * file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package eu.tsystems.mms.tic.testerra.plugins.xray.tests.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.sun.jersey.api.client.Client;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.TerminatingClientHandler;
+import com.sun.jersey.core.header.InBoundHeaders;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatus;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraStatusCategory;
+import eu.tsystems.mms.tic.testerra.plugins.xray.mapper.jira.JiraTransition;
+import eu.tsystems.mms.tic.testerra.plugins.xray.tests.AbstractTest;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.JiraUtils;
+import eu.tsystems.mms.tic.testerra.plugins.xray.util.TransitionPlanner;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import org.testng.annotations.Test;
+
+public class TransitionPlannerTest extends AbstractTest {
+
+    private static final String SCOPE = TransitionPlanner.createScope("SWFTE", "Test Execution");
+    private static final Pattern TRANSITION_ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*\"(\\d+)\"");
+
+    /**
+     * Workflow: Open -> In Progress -> In Review -> Done, with a shortcut from In Progress to Done
+     */
+    private static final Map<String, String> STATUSES = new HashMap<>();
+    private static final Map<String, List<String>> TRANSITIONS = new HashMap<>();
+
+    static {
+        STATUSES.put("1", "{\"id\":\"1\",\"name\":\"Open\",\"statusCategory\":{\"key\":\"new\"}}");
+        STATUSES.put("3", "{\"id\":\"3\",\"name\":\"In Progress\",\"statusCategory\":{\"key\":\"indeterminate\"}}");
+        STATUSES.put("4", "{\"id\":\"4\",\"name\":\"In Review\",\"statusCategory\":{\"key\":\"indeterminate\"}}");
+        STATUSES.put("5", "{\"id\":\"5\",\"name\":\"Done\",\"statusCategory\":{\"key\":\"done\"}}");
+        TRANSITIONS.put("1", Collections.singletonList(transition("11", "Start", "3")));
+        TRANSITIONS.put("3", Arrays.asList(transition("21", "Review", "4"), transition("31", "Finish", "5")));
+        TRANSITIONS.put("4", Collections.singletonList(transition("31", "Finish", "5")));
+        TRANSITIONS.put("5", Collections.emptyList());
+    }
+
+    private static String transition(String id, String name, String toStatusId) {
+        return String.format("{\"id\":\"%s\",\"name\":\"%s\",\"to\":%s}", id, name, STATUSES.get(toStatusId));
+    }
+
+    private static String transitions(String statusId) {
+        return String.format("\"transitions\":[%s]", String.join(",", TRANSITIONS.get(statusId)));
+    }
+
+    /**
+     * Simulates the transitions of a single issue and counts the requests of available transitions.
+     * Terminates the client to get the message body workers injected, which read the response entities.
+     */
+    private static class FakeJira extends TerminatingClientHandler {
+        private String statusId = "1";
+        private final AtomicInteger transitionRequests = new AtomicInteger();
+        private final AtomicInteger performedTransitions = new AtomicInteger();
+
+        @Override
+        public ClientResponse handle(ClientRequest request) {
+            final String path = request.getURI().getPath();
+            String body = "";
+            int status = 200;
+            if ("POST".equals(request.getMethod())) {
+                final Matcher matcher = TRANSITION_ID_PATTERN.matcher(request.getEntity().toString());
+                assertTrue(matcher.find());
+                final String transitionId = matcher.group(1);
+                statusId = TRANSITIONS.get(statusId).stream()
+                        .filter(transition -> transition.startsWith(String.format("{\"id\":\"%s\"", transitionId)))
+                        .map(transition -> transition.replaceAll(".*\"to\":\\{\"id\":\"(\\d+)\".*", "$1"))
+                        .findFirst()
+                        .orElseThrow(() -> new AssertionError("Transition not available: " + transitionId));
+                performedTransitions.incrementAndGet();
+                status = 204;
+            } else if (path.endsWith("/transitions")) {
+                transitionRequests.incrementAndGet();
+                body = String.format("{%s}", transitions(statusId));
+            } else {
+                transitionRequests.incrementAndGet();
+                body = String.format("{\"key\":\"SWFTE-1\",\"fields\":{\"status\":%s,\"issuetype\":{\"name\":\"Test Execution\"}},%s}", STATUSES.get(statusId), transitions(statusId));
+            }
+            return new ClientResponse(status, new InBoundHeaders(), new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), getMessageBodyWorkers());
+        }
+    }
+
+    private JiraUtils createJiraUtils(FakeJira fakeJira, TransitionPlanner transitionPlanner) {
+        final Client client = new Client(fakeJira);
+        final JiraUtils jiraUtils = new JiraUtils(client.resource("http://localhost/jira/rest/"));
+        jiraUtils.setTransitionPlanner(transitionPlanner);
+        return jiraUtils;
+    }
+
+    /**
+     * Learns the transitions of every status by requesting the issue in it
+     */
+    private TransitionPlanner createLearnedPlanner() throws Exception {
+        final TransitionPlanner transitionPlanner = new TransitionPlanner();
+        for (String statusId : Arrays.asList("1", "3", "4")) {
+            final FakeJira fakeJira = new FakeJira();
+            fakeJira.statusId = statusId;
+            createJiraUtils(fakeJira, transitionPlanner).performTransitionsTo("SWFTE-1", JiraStatusCategory.NEW);
+        }
+        return transitionPlanner;
+    }
+
+    private JiraStatus status(String id, JiraStatusCategory statusCategory) {
+        final JiraStatus status = new JiraStatus();
+        status.setId(id);
+        status.setStatusCategory(statusCategory);
+        return status;
+    }
+
+    @Test
+    public void testPerformTransitionChainByLearnedTransitions() {
+        final TransitionPlanner transitionPlanner = new TransitionPlanner();
+        final LinkedList<JiraStatusCategory> chain = new LinkedList<>(Arrays.asList(JiraStatusCategory.INDETERMINATE, JiraStatusCategory.INDETERMINATE, JiraStatusCategory.DONE));
+
+        final FakeJira firstExecution = new FakeJira();
+        createJiraUtils(firstExecution, transitionPlanner).performTransitionChain("SWFTE-1", chain);
+        assertEquals(firstExecution.statusId, "5");
+        assertEquals(firstExecution.performedTransitions.get(), 3);
+        assertEquals(firstExecution.transitionRequests.get(), 3);
+
+        // All statuses of the chain have been learned
+        final FakeJira secondExecution = new FakeJira();
+        createJiraUtils(secondExecution, transitionPlanner).performTransitionChain("SWFTE-1", chain);
+        assertEquals(secondExecution.statusId, "5");
+        assertEquals(secondExecution.performedTransitions.get(), 3);
+        assertEquals(secondExecution.transitionRequests.get(), 1);
+    }
+
+    @Test
+    public void testFindShortestPath() throws Exception {
+        final TransitionPlanner transitionPlanner = createLearnedPlanner();
+
+        final List<String> path = transitionPlanner.findPath(SCOPE, status("1", JiraStatusCategory.NEW), JiraStatusCategory.DONE).get().stream()
+                .map(JiraTransition::getId)
+                .collect(Collectors.toList());
+        assertEquals(path, Arrays.asList("11", "31"));
+        assertTrue(transitionPlanner.findPath(SCOPE, status("5", JiraStatusCategory.DONE), JiraStatusCategory.DONE).get().isEmpty());
+        assertFalse(transitionPlanner.findPath(SCOPE, status("5", JiraStatusCategory.DONE), JiraStatusCategory.NEW).isPresent());
+    }
+
+    @Test
+    public void testPerformTransitionsTo() throws Exception {
+        final TransitionPlanner transitionPlanner = createLearnedPlanner();
+        final FakeJira fakeJira = new FakeJira();
+
+        assertTrue(createJiraUtils(fakeJira, transitionPlanner).performTransitionsTo("SWFTE-1", JiraStatusCategory.DONE));
+        assertEquals(fakeJira.statusId, "5");
+        assertEquals(fakeJira.performedTransitions.get(), 2);
+        assertEquals(fakeJira.transitionRequests.get(), 1);
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        final File file = File.createTempFile("transitions", ".json");
+        file.deleteOnExit();
+        createLearnedPlanner().save(file);
+
+        final TransitionPlanner transitionPlanner = new TransitionPlanner();
+        transitionPlanner.load(file);
+
+        assertTrue(transitionPlanner.isLearned(SCOPE, status("3", JiraStatusCategory.INDETERMINATE)));
+        assertEquals(transitionPlanner.findPath(SCOPE, status("1", JiraStatusCategory.NEW), JiraStatusCategory.DONE).get().size(), 2);
+    }
+}